@@ -0,0 +1,282 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.os.Build;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.barteksc.pdfviewer.util.Constants.Cache.BITMAP_POOL_MEMORY_RATIO;
+
+/**
+ * Keeps bitmaps of evicted parts, so they can be reused for rendering
+ * of new parts instead of allocating new ones.
+ * Bitmaps are grouped by width, height and config.
+ */
+class BitmapPool {
+
+    /**
+     * Maximum ratio of the allocation of a reconfigured bitmap to the memory it needs,
+     * larger bitmaps would waste memory charged against the cache budget
+     */
+    private static final int MAX_RECONFIGURE_OVERSHOOT = 2;
+
+    private final List<Bucket> buckets = new ArrayList<>();
+
+    /** Maximum memory used by pooled bitmaps, in bytes */
+    private long maxBytes;
+
+    /** Memory used by pooled bitmaps, in bytes */
+    private long sizeBytes = 0;
+
+    private int hitCount = 0;
+
+    private int missCount = 0;
+
+    /** Increased on every access, used to find least recently used bucket */
+    private long accessCounter = 0;
+
+    /** Set by {@link #clear()}, released bitmaps are recycled until the pool is opened again */
+    private boolean closed = false;
+
+    BitmapPool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Get default pool size, based on memory available to the application
+     *
+     * @return pool size in bytes
+     */
+    static long getDefaultMaxBytes(Context context) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        long memoryClassBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        return (long) (memoryClassBytes * BITMAP_POOL_MEMORY_RATIO);
+    }
+
+    /**
+     * Get an erased bitmap from the pool or create new one if there is no matching bitmap
+     *
+     * @throws IllegalArgumentException if width or height is not positive
+     */
+    Bitmap acquire(int width, int height, Bitmap.Config config) {
+        synchronized (buckets) {
+            Bitmap bitmap = poll(width, height, config);
+            if (bitmap != null) {
+                hitCount++;
+                bitmap.eraseColor(Color.TRANSPARENT);
+                return bitmap;
+            }
+            missCount++;
+        }
+        return Bitmap.createBitmap(width, height, config);
+    }
+
+    /** Return bitmap to the pool, bitmap is recycled if pool is full */
+    void release(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable()) {
+            bitmap.recycle();
+            return;
+        }
+        int bytes = CacheManager.getBitmapBytes(bitmap);
+        synchronized (buckets) {
+            if (closed || bytes > maxBytes) {
+                bitmap.recycle();
+                return;
+            }
+            while (sizeBytes + bytes > maxBytes) {
+                evictLeastRecentlyUsed();
+            }
+            Bucket bucket = findBucket(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+            if (bucket == null) {
+                bucket = new Bucket(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+                buckets.add(bucket);
+            }
+            bucket.bitmaps.push(bitmap);
+            bucket.lastAccess = ++accessCounter;
+            sizeBytes += bytes;
+        }
+    }
+
+    void setMaxBytes(long maxBytes) {
+        synchronized (buckets) {
+            this.maxBytes = maxBytes;
+            while (sizeBytes > maxBytes) {
+                evictLeastRecentlyUsed();
+            }
+        }
+    }
+
+    long getMaxBytes() {
+        return maxBytes;
+    }
+
+    long getSizeBytes() {
+        synchronized (buckets) {
+            return sizeBytes;
+        }
+    }
+
+    /** Number of times a pooled bitmap was reused */
+    int getHitCount() {
+        synchronized (buckets) {
+            return hitCount;
+        }
+    }
+
+    /** Number of times a new bitmap had to be allocated */
+    int getMissCount() {
+        synchronized (buckets) {
+            return missCount;
+        }
+    }
+
+    /** Recycle all pooled bitmaps, bitmaps released later are recycled as well */
+    void clear() {
+        synchronized (buckets) {
+            closed = true;
+            for (Bucket bucket : buckets) {
+                for (Bitmap bitmap : bucket.bitmaps) {
+                    bitmap.recycle();
+                }
+            }
+            buckets.clear();
+            sizeBytes = 0;
+        }
+    }
+
+    /** Accept released bitmaps again after {@link #clear()} */
+    void open() {
+        synchronized (buckets) {
+            closed = false;
+        }
+    }
+
+    private Bitmap poll(int width, int height, Bitmap.Config config) {
+        Bucket bucket = findBucket(width, height, config);
+        if (bucket != null) {
+            Bitmap bitmap = bucket.bitmaps.pop();
+            bucket.lastAccess = ++accessCounter;
+            removeIfEmpty(bucket);
+            sizeBytes -= CacheManager.getBitmapBytes(bitmap);
+            return bitmap;
+        }
+
+        // Bitmaps of other sizes can be reconfigured if they have enough memory allocated,
+        // the smallest one is used, unless even that one is too large.
+        // Bitmaps of one bucket may differ in allocation, if they were reconfigured before
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            long requiredBytes = (long) width * height * getBytesPerPixel(config);
+            long maxAllocationBytes = requiredBytes * MAX_RECONFIGURE_OVERSHOOT;
+            Bucket bestBucket = null;
+            Bitmap best = null;
+            int bestBytes = 0;
+            for (int i = 0; i < buckets.size(); i++) {
+                bucket = buckets.get(i);
+                if (bucket.config != config) {
+                    continue;
+                }
+                for (Bitmap candidate : bucket.bitmaps) {
+                    int candidateBytes = candidate.getAllocationByteCount();
+                    if (candidateBytes >= requiredBytes && candidateBytes <= maxAllocationBytes
+                            && (best == null || candidateBytes < bestBytes)) {
+                        bestBucket = bucket;
+                        best = candidate;
+                        bestBytes = candidateBytes;
+                    }
+                }
+            }
+            if (best != null) {
+                bestBucket.bitmaps.removeFirstOccurrence(best);
+                bestBucket.lastAccess = ++accessCounter;
+                removeIfEmpty(bestBucket);
+                sizeBytes -= bestBytes;
+                best.reconfigure(width, height, config);
+                return best;
+            }
+        }
+        return null;
+    }
+
+    private Bucket findBucket(int width, int height, Bitmap.Config config) {
+        for (int i = 0; i < buckets.size(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (bucket.width == width && bucket.height == height && bucket.config == config) {
+                return bucket;
+            }
+        }
+        return null;
+    }
+
+    private void removeIfEmpty(Bucket bucket) {
+        if (bucket.bitmaps.isEmpty()) {
+            buckets.remove(bucket);
+        }
+    }
+
+    private void evictLeastRecentlyUsed() {
+        Bucket leastRecentlyUsed = null;
+        for (int i = 0; i < buckets.size(); i++) {
+            Bucket bucket = buckets.get(i);
+            if (leastRecentlyUsed == null || bucket.lastAccess < leastRecentlyUsed.lastAccess) {
+                leastRecentlyUsed = bucket;
+            }
+        }
+        if (leastRecentlyUsed == null) {
+            sizeBytes = 0;
+            return;
+        }
+        Bitmap bitmap = leastRecentlyUsed.bitmaps.removeLast();
+        removeIfEmpty(leastRecentlyUsed);
+        sizeBytes -= CacheManager.getBitmapBytes(bitmap);
+        bitmap.recycle();
+    }
+
+    private static int getBytesPerPixel(Bitmap.Config config) {
+        switch (config) {
+            case ALPHA_8:
+                return 1;
+            case RGB_565:
+            case ARGB_4444:
+                return 2;
+            default:
+                return 4;
+        }
+    }
+
+    private static class Bucket {
+        final int width;
+        final int height;
+        final Bitmap.Config config;
+        final ArrayDeque<Bitmap> bitmaps = new ArrayDeque<>();
+        long lastAccess;
+
+        Bucket(int width, int height, Bitmap.Config config) {
+            this.width = width;
+            this.height = height;
+            this.config = config;
+        }
+    }
+}
@@ -1,192 +1,883 @@
-/**
- * Copyright 2016 Bartosz Schiller
- * <p/>
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * <p/>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p/>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.github.barteksc.pdfviewer;
-
-import android.graphics.RectF;
-import androidx.annotation.Nullable;
-
-import com.github.barteksc.pdfviewer.model.PagePart;
-
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Comparator;
-import java.util.List;
-import java.util.PriorityQueue;
-
-import static com.github.barteksc.pdfviewer.util.Constants.Cache.CACHE_SIZE;
-import static com.github.barteksc.pdfviewer.util.Constants.Cache.THUMBNAILS_CACHE_SIZE;
-
-class CacheManager {
-
-    private final PriorityQueue<PagePart> passiveCache;
-
-    private final PriorityQueue<PagePart> activeCache;
-
-    private final List<PagePart> thumbnails;
-
-    private final Object passiveActiveLock = new Object();
-
-    private final PagePartComparator orderComparator = new PagePartComparator();
-
-    public CacheManager() {
-        activeCache = new PriorityQueue<>(CACHE_SIZE, orderComparator);
-        passiveCache = new PriorityQueue<>(CACHE_SIZE, orderComparator);
-        thumbnails = new ArrayList<>();
-    }
-
-    public void cachePart(PagePart part) {
-        synchronized (passiveActiveLock) {
-            // If cache too big, remove and recycle
-            makeAFreeSpace();
-
-            // Then add part
-            activeCache.offer(part);
-        }
-    }
-
-    public void makeANewSet() {
-        synchronized (passiveActiveLock) {
-            passiveCache.addAll(activeCache);
-            activeCache.clear();
-        }
-    }
-
-    private void makeAFreeSpace() {
-        synchronized (passiveActiveLock) {
-            while ((activeCache.size() + passiveCache.size()) >= CACHE_SIZE &&
-                    !passiveCache.isEmpty()) {
-                PagePart part = passiveCache.poll();
-                part.getRenderedBitmap().recycle();
-            }
-
-            while ((activeCache.size() + passiveCache.size()) >= CACHE_SIZE &&
-                    !activeCache.isEmpty()) {
-                activeCache.poll().getRenderedBitmap().recycle();
-            }
-        }
-    }
-
-    public void cacheThumbnail(PagePart part) {
-        synchronized (thumbnails) {
-            // If cache too big, remove and recycle
-            while (thumbnails.size() >= THUMBNAILS_CACHE_SIZE) {
-                thumbnails.remove(0).getRenderedBitmap().recycle();
-            }
-
-            // Then add thumbnail
-            addWithoutDuplicates(thumbnails, part);
-        }
-
-    }
-
-    public boolean upPartIfContained(int page, RectF pageRelativeBounds, int toOrder) {
-        PagePart fakePart = new PagePart(page, null, pageRelativeBounds, false, 0);
-
-        PagePart found;
-        synchronized (passiveActiveLock) {
-            if ((found = find(passiveCache, fakePart)) != null) {
-                passiveCache.remove(found);
-                found.setCacheOrder(toOrder);
-                activeCache.offer(found);
-                return true;
-            }
-
-            return find(activeCache, fakePart) != null;
-        }
-    }
-
-    /**
-     * Return true if already contains the described PagePart
-     */
-    public boolean containsThumbnail(int page, RectF pageRelativeBounds) {
-        PagePart fakePart = new PagePart(page, null, pageRelativeBounds, true, 0);
-        synchronized (thumbnails) {
-            for (PagePart part : thumbnails) {
-                if (part.equals(fakePart)) {
-                    return true;
-                }
-            }
-            return false;
-        }
-    }
-
-    /**
-     * Add part if it doesn't exist, recycle bitmap otherwise
-     */
-    private void addWithoutDuplicates(Collection<PagePart> collection, PagePart newPart) {
-        for (PagePart part : collection) {
-            if (part.equals(newPart)) {
-                newPart.getRenderedBitmap().recycle();
-                return;
-            }
-        }
-        collection.add(newPart);
-    }
-
-    @Nullable
-    private static PagePart find(PriorityQueue<PagePart> vector, PagePart fakePart) {
-        for (PagePart part : vector) {
-            if (part.equals(fakePart)) {
-                return part;
-            }
-        }
-        return null;
-    }
-
-    public List<PagePart> getPageParts() {
-        synchronized (passiveActiveLock) {
-            List<PagePart> parts = new ArrayList<>(passiveCache);
-            parts.addAll(activeCache);
-            return parts;
-        }
-    }
-
-    public List<PagePart> getThumbnails() {
-        synchronized (thumbnails) {
-            return thumbnails;
-        }
-    }
-
-    public void recycle() {
-        synchronized (passiveActiveLock) {
-            for (PagePart part : passiveCache) {
-                part.getRenderedBitmap().recycle();
-            }
-            passiveCache.clear();
-            for (PagePart part : activeCache) {
-                part.getRenderedBitmap().recycle();
-            }
-            activeCache.clear();
-        }
-        synchronized (thumbnails) {
-            for (PagePart part : thumbnails) {
-                part.getRenderedBitmap().recycle();
-            }
-            thumbnails.clear();
-        }
-    }
-
-    class PagePartComparator implements Comparator<PagePart> {
-        @Override
-        public int compare(PagePart part1, PagePart part2) {
-            if (part1.getCacheOrder() == part2.getCacheOrder()) {
-                return 0;
-            }
-            return part1.getCacheOrder() > part2.getCacheOrder() ? 1 : -1;
-        }
-    }
-
-}
+/**
+ * Copyright 2016 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+import android.os.Build;
+import android.util.SparseArray;
+
+import com.github.barteksc.pdfviewer.model.PagePart;
+import com.github.barteksc.pdfviewer.util.LongHashMap;
+import com.github.barteksc.pdfviewer.util.TileKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static com.github.barteksc.pdfviewer.util.Constants.Cache.CACHE_MEMORY_RATIO;
+import static com.github.barteksc.pdfviewer.util.Constants.Cache.CACHE_SIZE;
+import static com.github.barteksc.pdfviewer.util.Constants.Cache.DRAFTS_CACHE_SIZE;
+import static com.github.barteksc.pdfviewer.util.Constants.Cache.THUMBNAILS_CACHE_SIZE;
+import static com.github.barteksc.pdfviewer.util.Constants.PART_SIZE;
+
+class CacheManager {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private static final float COVERAGE_TOLERANCE = 1e-4f;
+
+    /** Default of the deprecated {@code Constants.Cache.CACHE_SIZE} */
+    private static final int DEFAULT_CACHE_SIZE = 120;
+
+    /** Parts from previous sets grouped by their level, each list in order of eviction */
+    private final SparseArray<PartList> passiveCache;
+
+    /** Parts of the current set, sorted by cache order */
+    private final PartList activeCache;
+
+    /** Nodes of both active and passive parts by their {@link TileKey} */
+    private final LongHashMap<Node> index;
+
+    /** Nodes with this set number are active, all others are passive */
+    private int activeSet = 0;
+
+    /** Level of the current zoom, passive parts of levels farthest from it are evicted first */
+    private int currentLevel = 0;
+
+    /**
+     * Parts which were visible before the last change of level, kept as a scaled fallback
+     * until parts of the current level cover them, in order of eviction
+     */
+    private final PartList fallbackCache = new PartList();
+
+    /** Parts prepared for drawing, rebuilt only after the cache changed */
+    private volatile DrawingSnapshot drawingSnapshot = DrawingSnapshot.EMPTY;
+
+    private volatile boolean drawingSnapshotValid = true;
+
+    /** Snapshot drawn instead of the current one while it is frozen, or null */
+    private volatile DrawingSnapshot frozenSnapshot;
+
+    /** Orders nodes by page */
+    private static final Comparator<Node> PAGE_COMPARATOR = new Comparator<Node>() {
+        @Override
+        public int compare(Node node1, Node node2) {
+            return node1.part.getPage() - node2.part.getPage();
+        }
+    };
+
+    /** Orders nodes so parts of levels farthest from the current level come first */
+    private final Comparator<Node> levelDistanceComparator = new Comparator<Node>() {
+        @Override
+        public int compare(Node node1, Node node2) {
+            return getLevelDistance(node2.level) - getLevelDistance(node1.level);
+        }
+    };
+
+    private final List<PagePart> thumbnails;
+
+    /** Drafts of progressive rendering, at most one for each page */
+    private final List<PagePart> drafts;
+
+    private final Object passiveActiveLock = new Object();
+
+    /** Evicted bitmaps are returned to the pool for reuse */
+    private final BitmapPool bitmapPool;
+
+    /** Guards lists of evicted parts waiting for release */
+    private final Object releaseLock = new Object();
+
+    /**
+     * Parts evicted since the view started the last frame. The frame being rendered
+     * can still draw their bitmaps, so they are released only when the next frame starts.
+     */
+    private List<PagePart> evictedParts = new ArrayList<>();
+
+    /** Parts evicted before the last frame started, no frame draws them anymore */
+    private List<PagePart> releasableParts = new ArrayList<>();
+
+    /** Collects parts evicted by {@link #cachePart(PagePart, List)} while it runs */
+    private List<PagePart> evictedByCaching;
+
+    /** Fallback nodes which may be covered, reused by {@link #releaseCoveredFallbacks(PagePart)} */
+    private final List<Node> coveredCandidates = new ArrayList<>();
+
+    /** Bounds of parts of the current level on one page, reused by {@link #releaseCoveredFallbacks(PagePart)} */
+    private final List<RectF> coveringBounds = new ArrayList<>();
+
+    /** Optional second level cache, evicted parts are written to it before their bitmaps are reused */
+    private DiskTileCache diskTileCache;
+
+    /** Maximum memory used by bitmaps of parts and thumbnails, in bytes */
+    private long maxBytes;
+
+    /** Memory used by bitmaps of parts in active and passive cache, in bytes */
+    private long partsBytes = 0;
+
+    /** Memory used by bitmaps of thumbnails, in bytes */
+    private long thumbnailsBytes = 0;
+
+    /** Memory used by bitmaps of drafts, in bytes */
+    private long draftsBytes = 0;
+
+    public CacheManager(BitmapPool bitmapPool, long maxBytes) {
+        this.bitmapPool = bitmapPool;
+        this.maxBytes = maxBytes;
+        activeCache = new PartList();
+        passiveCache = new SparseArray<>();
+        index = new LongHashMap<>(INITIAL_CAPACITY);
+        thumbnails = new ArrayList<>();
+        drafts = new ArrayList<>();
+    }
+
+    /**
+     * Get default cache size, based on memory available to the application
+     *
+     * @return cache size in bytes
+     */
+    @SuppressWarnings("deprecation")
+    public static long getDefaultMaxBytes(Context context) {
+        if (CACHE_SIZE != DEFAULT_CACHE_SIZE) {
+            // changed by the application, which counts on this number of full parts
+            return (long) (CACHE_SIZE * PART_SIZE * PART_SIZE * 4);
+        }
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        long memoryClassBytes = activityManager.getMemoryClass() * 1024L * 1024L;
+        return (long) (memoryClassBytes * CACHE_MEMORY_RATIO);
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        synchronized (passiveActiveLock) {
+            this.maxBytes = maxBytes;
+            makeAFreeSpace(0);
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setDiskTileCache(DiskTileCache diskTileCache) {
+        synchronized (passiveActiveLock) {
+            this.diskTileCache = diskTileCache;
+        }
+    }
+
+    /** Memory used by all cached bitmaps, in bytes */
+    public long getSizeBytes() {
+        return getPartsBytes() + getThumbnailsBytes() + getDraftsBytes();
+    }
+
+    public long getPartsBytes() {
+        synchronized (passiveActiveLock) {
+            return partsBytes;
+        }
+    }
+
+    public long getThumbnailsBytes() {
+        synchronized (thumbnails) {
+            return thumbnailsBytes;
+        }
+    }
+
+    public long getDraftsBytes() {
+        synchronized (drafts) {
+            return draftsBytes;
+        }
+    }
+
+    /**
+     * Get number of parts of given size which fit into the cache
+     *
+     * @param bytesPerPart memory used by a single part, in bytes
+     */
+    public int getPartsCapacity(int bytesPerPart) {
+        long available = maxBytes - getThumbnailsBytes() - getDraftsBytes();
+        return (int) Math.max(1, available / Math.max(1, bytesPerPart));
+    }
+
+    public void cachePart(PagePart part) {
+        cachePart(part, null);
+    }
+
+    /**
+     * Cache part, evicting other parts if the cache is full
+     *
+     * @param evicted list to which parts evicted or replaced by the part are added, so the view can redraw
+     *                their regions, or null
+     */
+    public void cachePart(PagePart part, List<PagePart> evicted) {
+        int bytes = getBitmapBytes(part.getRenderedBitmap());
+        synchronized (passiveActiveLock) {
+            // Part could be rendered twice, keep the cached one unless it was rendered in reduced quality
+            Node cached = index.get(part.getKey());
+            if (cached != null && (part.isReducedQuality() || !cached.part.isReducedQuality())) {
+                bitmapPool.release(part.getRenderedBitmap());
+                return;
+            }
+            evictedByCaching = evicted;
+            try {
+                if (cached != null) {
+                    recyclePart(cached);
+                }
+
+                // Fallbacks covered by the part are released first, so they free space for it
+                Node node = new Node(part);
+                if (node.level == currentLevel) {
+                    releaseCoveredFallbacks(part);
+                }
+
+                // If cache too big, remove and recycle
+                makeAFreeSpace(bytes);
+
+                // Then add part
+                index.put(part.getKey(), node);
+                drawingSnapshotValid = false;
+                addActive(node);
+                partsBytes += bytes;
+            } finally {
+                evictedByCaching = null;
+            }
+        }
+    }
+
+    /**
+     * Move all active parts to the passive cache. If the level changes, active parts of other levels
+     * are kept as a fallback, evicted only after other passive parts, until they are covered by parts of the new level.
+     * Fallback parts of the new level are passive parts again.
+     *
+     * @param level {@link com.github.barteksc.pdfviewer.util.TilePyramid} level of parts of the new set
+     */
+    public void makeANewSet(int level) {
+        synchronized (passiveActiveLock) {
+            boolean levelChanged = level != currentLevel;
+            currentLevel = level;
+            Node node = activeCache.first();
+            while (node != activeCache.head) {
+                Node next = node.next;
+                PartList.unlink(node);
+                if (levelChanged && node.level != level) {
+                    fallbackCache.addLast(node);
+                } else {
+                    getPassiveList(node.level).addLast(node);
+                }
+                node = next;
+            }
+            if (levelChanged) {
+                restoreFallbacksOfCurrentLevel();
+            }
+            activeSet++;
+            drawingSnapshotValid = false;
+        }
+    }
+
+    /**
+     * Evict parts until there is space for a bitmap of given size,
+     * passive parts of levels farthest from the current one are evicted first,
+     * so parts of neighbouring levels survive zooming in and out
+     *
+     * @param incomingBytes size of bitmap which will be added, in bytes
+     */
+    private void makeAFreeSpace(int incomingBytes) {
+        synchronized (passiveActiveLock) {
+            long limit = maxBytes - getThumbnailsBytes() - getDraftsBytes() - incomingBytes;
+            PartList farthest;
+            while (partsBytes > limit && (farthest = getFarthestPassiveList()) != null) {
+                recyclePart(farthest.first());
+            }
+
+            while (partsBytes > limit && !fallbackCache.isEmpty()) {
+                recyclePart(fallbackCache.first());
+            }
+
+            while (partsBytes > limit && !activeCache.isEmpty()) {
+                recyclePart(activeCache.first());
+            }
+        }
+    }
+
+    /** Move fallback parts of the current level to its passive list, they may cover other fallback parts */
+    private void restoreFallbacksOfCurrentLevel() {
+        List<Node> restored = null;
+        Node node = fallbackCache.first();
+        while (node != fallbackCache.head) {
+            Node next = node.next;
+            if (node.level == currentLevel) {
+                PartList.unlink(node);
+                getPassiveList(currentLevel).addLast(node);
+                if (restored == null) {
+                    restored = new ArrayList<>();
+                }
+                restored.add(node);
+            }
+            node = next;
+        }
+        if (restored != null) {
+            drawingSnapshotValid = false;
+            for (int i = 0; i < restored.size() && !fallbackCache.isEmpty(); i++) {
+                releaseCoveredFallbacks(restored.get(i).part);
+            }
+        }
+    }
+
+    /**
+     * Release fallback parts of the page of the part, which are fully covered by parts of the current level.
+     * The part is counted even if it is not cached yet. Parts of the current level are collected only
+     * if some fallback part intersects the part, and only once for all of them.
+     */
+    private void releaseCoveredFallbacks(PagePart part) {
+        int page = part.getPage();
+        RectF bounds = part.getPageRelativeBounds();
+        for (Node node = fallbackCache.first(); node != fallbackCache.head; node = node.next) {
+            if (node.part.getPage() == page && RectF.intersects(node.part.getPageRelativeBounds(), bounds)) {
+                coveredCandidates.add(node);
+            }
+        }
+        if (coveredCandidates.isEmpty()) {
+            return;
+        }
+
+        addCoveringBounds(activeCache, page);
+        PartList passive = passiveCache.get(currentLevel);
+        if (passive != null) {
+            addCoveringBounds(passive, page);
+        }
+        if (!index.containsKey(part.getKey())) {
+            coveringBounds.add(bounds);
+        }
+        for (int i = 0; i < coveredCandidates.size(); i++) {
+            Node candidate = coveredCandidates.get(i);
+            if (isCovered(candidate.part.getPageRelativeBounds())) {
+                recyclePart(candidate);
+            }
+        }
+        coveredCandidates.clear();
+        coveringBounds.clear();
+    }
+
+    private void addCoveringBounds(PartList list, int page) {
+        for (Node node = list.first(); node != list.head; node = node.next) {
+            if (node.level == currentLevel && node.part.getPage() == page) {
+                coveringBounds.add(node.part.getPageRelativeBounds());
+            }
+        }
+    }
+
+    /** True if {@link #coveringBounds} cover given bounds */
+    private boolean isCovered(RectF bounds) {
+        float covered = 0;
+        for (int i = 0; i < coveringBounds.size(); i++) {
+            RectF partBounds = coveringBounds.get(i);
+            float width = Math.min(bounds.right, partBounds.right) - Math.max(bounds.left, partBounds.left);
+            float height = Math.min(bounds.bottom, partBounds.bottom) - Math.max(bounds.top, partBounds.top);
+            if (width > 0 && height > 0) {
+                covered += width * height;
+            }
+        }
+        // parts of one level do not overlap, tolerance covers rounding of their bounds
+        return covered >= bounds.width() * bounds.height() * (1 - COVERAGE_TOLERANCE);
+    }
+
+    private PartList getPassiveList(int level) {
+        PartList list = passiveCache.get(level);
+        if (list == null) {
+            list = new PartList();
+            passiveCache.put(level, list);
+        }
+        return list;
+    }
+
+    /** Get non empty passive list of level with the greatest distance from the current level */
+    private PartList getFarthestPassiveList() {
+        PartList farthest = null;
+        int farthestDistance = -1;
+        for (int i = 0; i < passiveCache.size(); i++) {
+            PartList list = passiveCache.valueAt(i);
+            int distance = Math.abs(passiveCache.keyAt(i) - currentLevel);
+            if (!list.isEmpty() && distance > farthestDistance) {
+                farthest = list;
+                farthestDistance = distance;
+            }
+        }
+        return farthest;
+    }
+
+    private int getLevelDistance(int level) {
+        return Math.abs(level - currentLevel);
+    }
+
+    private void recyclePart(Node node) {
+        PartList.unlink(node);
+        index.remove(node.part.getKey());
+        drawingSnapshotValid = false;
+        partsBytes -= getBitmapBytes(node.part.getRenderedBitmap());
+        releaseLater(node.part);
+        if (evictedByCaching != null) {
+            evictedByCaching.add(node.part);
+        }
+    }
+
+    /** Release bitmap of evicted part after frames which can draw it are rendered */
+    private void releaseLater(PagePart part) {
+        synchronized (releaseLock) {
+            evictedParts.add(part);
+        }
+    }
+
+    /**
+     * Called by the view when it starts to draw a frame. Parts evicted before the previous frame
+     * started are not drawn by any frame anymore, so they are written to the disk cache or their
+     * bitmaps are returned to the pool, where they can be reused and overwritten.
+     */
+    public void onFrameStarted() {
+        if (frozenSnapshot != null) {
+            // evicted parts can still be in the frozen snapshot
+            return;
+        }
+        synchronized (releaseLock) {
+            for (int i = 0; i < releasableParts.size(); i++) {
+                release(releasableParts.get(i));
+            }
+            releasableParts.clear();
+            List<PagePart> drawn = releasableParts;
+            releasableParts = evictedParts;
+            evictedParts = drawn;
+        }
+    }
+
+    private void release(PagePart part) {
+        DiskTileCache disk = diskTileCache;
+        if (disk != null && isPersisted(part)) {
+            disk.put(part, false);
+        } else {
+            bitmapPool.release(part.getRenderedBitmap());
+        }
+    }
+
+    /** True if part is written to the disk cache when it is evicted */
+    private static boolean isPersisted(PagePart part) {
+        return !part.isThumbnail() && !part.isDraft() && !part.isReducedQuality();
+    }
+
+    public void cacheThumbnail(PagePart part) {
+        synchronized (thumbnails) {
+            // If cache too big, remove and recycle
+            while (thumbnails.size() >= THUMBNAILS_CACHE_SIZE) {
+                PagePart evicted = thumbnails.remove(0);
+                thumbnailsBytes -= getBitmapBytes(evicted.getRenderedBitmap());
+                releaseLater(evicted);
+            }
+
+            // Then add thumbnail
+            if (addWithoutDuplicates(thumbnails, part)) {
+                thumbnailsBytes += getBitmapBytes(part.getRenderedBitmap());
+            }
+        }
+
+    }
+
+    /** Cache draft, replacing older draft of the same page */
+    public void cacheDraft(PagePart part) {
+        synchronized (drafts) {
+            for (int i = 0; i < drafts.size(); i++) {
+                if (drafts.get(i).getPage() == part.getPage()) {
+                    releaseDraft(i);
+                    break;
+                }
+            }
+            while (drafts.size() >= DRAFTS_CACHE_SIZE) {
+                releaseDraft(0);
+            }
+            drafts.add(part);
+            draftsBytes += getBitmapBytes(part.getRenderedBitmap());
+        }
+    }
+
+    private void releaseDraft(int index) {
+        PagePart draft = drafts.remove(index);
+        draftsBytes -= getBitmapBytes(draft.getRenderedBitmap());
+        releaseLater(draft);
+    }
+
+    /**
+     * Return true if there is a draft of the page which covers given page relative bounds
+     * and was rendered for zoom of given level, drafts of other levels are stale
+     */
+    public boolean containsDraft(int page, int level, RectF pageRelativeBounds) {
+        long key = TileKey.draft(page, level);
+        synchronized (drafts) {
+            for (int i = 0; i < drafts.size(); i++) {
+                PagePart draft = drafts.get(i);
+                if (draft.getKey() == key && draft.getPageRelativeBounds().contains(pageRelativeBounds)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Move part with given key to the active set if it is cached
+     *
+     * @param key     {@link TileKey} of the part
+     * @param toOrder new cache order of passive part
+     * @return true if part is cached
+     */
+    public boolean upPartIfContained(long key, int toOrder) {
+        return upPartIfContained(key, toOrder, true);
+    }
+
+    /**
+     * Move part with given key to the active set if it is cached
+     *
+     * @param key                  {@link TileKey} of the part
+     * @param toOrder              new cache order of passive part
+     * @param acceptReducedQuality false if part rendered in reduced quality should be rendered again
+     * @return true if part is cached and does not need to be rendered again
+     */
+    public boolean upPartIfContained(long key, int toOrder, boolean acceptReducedQuality) {
+        synchronized (passiveActiveLock) {
+            Node found = index.get(key);
+            if (found == null) {
+                return false;
+            }
+            if (found.set != activeSet) {
+                PartList.unlink(found);
+                found.part.setCacheOrder(toOrder);
+                addActive(found);
+                if (found.level == currentLevel && !fallbackCache.isEmpty()) {
+                    releaseCoveredFallbacks(found.part);
+                }
+            }
+            return acceptReducedQuality || !found.part.isReducedQuality();
+        }
+    }
+
+    /**
+     * Return true if already contains thumbnail of the page
+     */
+    public boolean containsThumbnail(int page) {
+        long key = TileKey.thumbnail(page);
+        synchronized (thumbnails) {
+            for (int i = 0; i < thumbnails.size(); i++) {
+                if (thumbnails.get(i).getKey() == key) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /** Insert node into the active set, keeping it sorted by cache order */
+    private void addActive(Node node) {
+        node.set = activeSet;
+        int order = node.part.getCacheOrder();
+        // parts usually come in ascending order, so searching from the end is fast
+        Node after = activeCache.last();
+        while (after != activeCache.head && after.part.getCacheOrder() > order) {
+            after = after.prev;
+        }
+        PartList.insertAfter(after, node);
+    }
+
+    /**
+     * Add part if it doesn't exist, return bitmap to the pool otherwise
+     *
+     * @return true if part was added
+     */
+    private boolean addWithoutDuplicates(Collection<PagePart> collection, PagePart newPart) {
+        for (PagePart part : collection) {
+            if (part.equals(newPart)) {
+                bitmapPool.release(newPart.getRenderedBitmap());
+                return false;
+            }
+        }
+        collection.add(newPart);
+        return true;
+    }
+
+    /** {@link com.github.barteksc.pdfviewer.util.TilePyramid} level of the last set of parts */
+    public int getCurrentLevel() {
+        synchronized (passiveActiveLock) {
+            return currentLevel;
+        }
+    }
+
+    /**
+     * Get all cached parts in drawing order, parts of levels farthest from the current level
+     * come first, so parts of the current level are drawn over scaled parts of other levels
+     */
+    public List<PagePart> getPageParts() {
+        Node[] nodes = getCurrentSnapshot().nodes;
+        List<PagePart> parts = new ArrayList<>(nodes.length);
+        for (Node node : nodes) {
+            parts.add(node.part);
+        }
+        return parts;
+    }
+
+    /**
+     * Get nodes of cached parts in the same order as {@link #getPageParts()}, without copying them on every call.
+     * Returned snapshot is shared and must not be modified, a new one is created after the cache changed,
+     * unless the snapshot is frozen. Only the view changes the draw bounds of the nodes, on the UI thread.
+     */
+    DrawingSnapshot getDrawingSnapshot() {
+        DrawingSnapshot frozen = frozenSnapshot;
+        return frozen != null ? frozen : getCurrentSnapshot();
+    }
+
+    /**
+     * Keep returning the current snapshot for drawing until {@link #unfreezeDrawingSnapshot()},
+     * bitmaps of its parts are not released meanwhile, even if the parts are evicted.
+     * Does nothing if the snapshot is already frozen.
+     */
+    void freezeDrawingSnapshot() {
+        if (frozenSnapshot == null) {
+            frozenSnapshot = getCurrentSnapshot();
+        }
+    }
+
+    /** Draw parts which are cached now again, evicted parts are released after the next frames */
+    void unfreezeDrawingSnapshot() {
+        frozenSnapshot = null;
+    }
+
+    private DrawingSnapshot getCurrentSnapshot() {
+        if (drawingSnapshotValid) {
+            return drawingSnapshot;
+        }
+        synchronized (passiveActiveLock) {
+            if (!drawingSnapshotValid) {
+                List<Node> nodes = new ArrayList<>(index.size());
+                for (int i = 0; i < passiveCache.size(); i++) {
+                    passiveCache.valueAt(i).addNodesTo(nodes);
+                }
+                fallbackCache.addNodesTo(nodes);
+                activeCache.addNodesTo(nodes);
+                Collections.sort(nodes, levelDistanceComparator);
+
+                List<Node> coveringNodes = new ArrayList<>();
+                for (int i = 0; i < nodes.size(); i++) {
+                    Node node = nodes.get(i);
+                    if (node.level == currentLevel && !node.part.isReducedQuality()) {
+                        coveringNodes.add(node);
+                    }
+                }
+                Collections.sort(coveringNodes, PAGE_COMPARATOR);
+
+                drawingSnapshot = new DrawingSnapshot(nodes.toArray(new Node[nodes.size()]),
+                        coveringNodes.toArray(new Node[coveringNodes.size()]));
+                drawingSnapshotValid = true;
+            }
+            return drawingSnapshot;
+        }
+    }
+
+    private void addAllParts(List<PagePart> parts) {
+        for (int i = 0; i < passiveCache.size(); i++) {
+            passiveCache.valueAt(i).addPartsTo(parts);
+        }
+        fallbackCache.addPartsTo(parts);
+        activeCache.addPartsTo(parts);
+    }
+
+    public List<PagePart> getThumbnails() {
+        synchronized (thumbnails) {
+            return thumbnails;
+        }
+    }
+
+    public List<PagePart> getDrafts() {
+        synchronized (drafts) {
+            return drafts;
+        }
+    }
+
+    public void recycle() {
+        synchronized (passiveActiveLock) {
+            List<PagePart> parts = new ArrayList<>(index.size());
+            addAllParts(parts);
+            synchronized (releaseLock) {
+                parts.addAll(releasableParts);
+                parts.addAll(evictedParts);
+                releasableParts.clear();
+                evictedParts.clear();
+            }
+            // parts still in memory are the most likely to be viewed again, they are written
+            // by one task, so they do not compete with evicted parts for places in the write queue
+            List<PagePart> persisted = new ArrayList<>(parts.size());
+            for (PagePart part : parts) {
+                if (diskTileCache != null && isPersisted(part)) {
+                    persisted.add(part);
+                } else {
+                    part.getRenderedBitmap().recycle();
+                }
+            }
+            if (diskTileCache != null) {
+                diskTileCache.putAll(persisted, true);
+            }
+            passiveCache.clear();
+            fallbackCache.clear();
+            activeCache.clear();
+            index.clear();
+            drawingSnapshot = DrawingSnapshot.EMPTY;
+            drawingSnapshotValid = true;
+            frozenSnapshot = null;
+            partsBytes = 0;
+        }
+        synchronized (thumbnails) {
+            for (PagePart part : thumbnails) {
+                part.getRenderedBitmap().recycle();
+            }
+            thumbnails.clear();
+            thumbnailsBytes = 0;
+        }
+        synchronized (drafts) {
+            for (PagePart part : drafts) {
+                part.getRenderedBitmap().recycle();
+            }
+            drafts.clear();
+            draftsBytes = 0;
+        }
+    }
+
+    /** Memory used by the bitmap, including memory which was allocated, but is not used for pixels */
+    static int getBitmapBytes(Bitmap bitmap) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            return bitmap.getAllocationByteCount();
+        }
+        return bitmap.getByteCount();
+    }
+
+    /** Cached part, linked in one of the lists of the cache */
+    static class Node {
+        final PagePart part;
+        final int level;
+        Node prev;
+        Node next;
+        /** Number of the set in which part was last requested */
+        int set;
+
+        /** Destination of the part in draw coordinates, computed by the view for {@link #drawLayoutStamp} */
+        final RectF drawBounds = new RectF();
+
+        int drawLayoutStamp = -1;
+
+        Node(PagePart part) {
+            this.part = part;
+            this.level = part != null ? TileKey.level(part.getKey()) : 0;
+        }
+    }
+
+    /** Cached parts prepared for drawing, created after the cache changed */
+    static class DrawingSnapshot {
+        static final DrawingSnapshot EMPTY = new DrawingSnapshot(new Node[0], new Node[0]);
+
+        /** Nodes of all parts in drawing order */
+        final Node[] nodes;
+
+        /**
+         * Nodes of parts of the current level rendered in full quality, sorted by page.
+         * Regions of pages covered by them need no background, thumbnail or draft below them.
+         */
+        final Node[] coveringNodes;
+
+        DrawingSnapshot(Node[] nodes, Node[] coveringNodes) {
+            this.nodes = nodes;
+            this.coveringNodes = coveringNodes;
+        }
+
+        /** Get index of the first covering node of the page, or of the first node of a later page */
+        int firstCoveringNode(int page) {
+            int low = 0;
+            int high = coveringNodes.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (coveringNodes[middle].part.getPage() < page) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+
+    /**
+     * Doubly linked list of nodes with a sentinel head, which allows removing
+     * and adding any node in constant time
+     */
+    private static class PartList {
+        final Node head = new Node(null);
+
+        PartList() {
+            clear();
+        }
+
+        boolean isEmpty() {
+            return head.next == head;
+        }
+
+        Node first() {
+            return head.next;
+        }
+
+        Node last() {
+            return head.prev;
+        }
+
+        void clear() {
+            head.next = head;
+            head.prev = head;
+        }
+
+        void addLast(Node node) {
+            insertAfter(head.prev, node);
+        }
+
+        void addPartsTo(List<PagePart> parts) {
+            for (Node node = head.next; node != head; node = node.next) {
+                parts.add(node.part);
+            }
+        }
+
+        void addNodesTo(List<Node> nodes) {
+            for (Node node = head.next; node != head; node = node.next) {
+                nodes.add(node);
+            }
+        }
+
+        static void insertAfter(Node after, Node node) {
+            node.prev = after;
+            node.next = after.next;
+            after.next.prev = node;
+            after.next = node;
+        }
+
+        static void unlink(Node node) {
+            node.prev.next = node.next;
+            node.next.prev = node.prev;
+            node.prev = null;
+            node.next = null;
+        }
+    }
+
+}
@@ -16,33 +16,40 @@
 package com.github.barteksc.pdfviewer;
 
 import android.os.AsyncTask;
+import android.util.Log;
 
+import com.github.barteksc.pdfviewer.backend.DocumentEngine;
+import com.github.barteksc.pdfviewer.backend.RenderBackend;
 import com.github.barteksc.pdfviewer.source.DocumentSource;
-import com.shockwave.pdfium.PdfDocument;
-import com.shockwave.pdfium.PdfiumCore;
+import com.github.barteksc.pdfviewer.util.LoadStage;
 import com.shockwave.pdfium.util.Size;
 
+import java.io.IOException;
 import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
 
-class DecodingAsyncTask extends AsyncTask<Void, Void, Throwable> {
+class DecodingAsyncTask extends AsyncTask<Void, LoadStage, Throwable> {
+
+    private static final String TAG = DecodingAsyncTask.class.getSimpleName();
 
     private boolean cancelled;
 
     private WeakReference<PDFView> pdfViewReference;
 
-    private PdfiumCore pdfiumCore;
+    private RenderBackend renderBackend;
     private String password;
     private DocumentSource docSource;
     private int[] userPages;
     private PdfFile pdfFile;
 
-    DecodingAsyncTask(DocumentSource docSource, String password, int[] userPages, PDFView pdfView, PdfiumCore pdfiumCore) {
+    DecodingAsyncTask(DocumentSource docSource, String password, int[] userPages, PDFView pdfView, RenderBackend renderBackend) {
         this.docSource = docSource;
         this.userPages = userPages;
         this.cancelled = false;
         this.pdfViewReference = new WeakReference<>(pdfView);
         this.password = password;
-        this.pdfiumCore = pdfiumCore;
+        this.renderBackend = renderBackend;
     }
 
     @Override
@@ -50,10 +57,16 @@ class DecodingAsyncTask extends AsyncTask<Void, Void, Throwable> {
         try {
             PDFView pdfView = pdfViewReference.get();
             if (pdfView != null) {
-                PdfDocument pdfDocument = docSource.createDocument(pdfView.getContext(), pdfiumCore, password);
-                pdfFile = new PdfFile(pdfiumCore, pdfDocument, pdfView.getPageFitPolicy(), getViewSize(pdfView),
+                List<DocumentEngine> documentEngines = openDocumentEngines(pdfView);
+                publishProgress(LoadStage.DOCUMENT_OPENED);
+                pdfFile = new PdfFile(documentEngines, pdfView.getPageFitPolicy(), getViewSize(pdfView),
                         userPages, pdfView.isSwipeVertical(), pdfView.getSpacingPx(), pdfView.isAutoSpacingEnabled(),
-                        pdfView.isFitEachPage(), pdfView.getPageSizeCalculatorHandler());
+                        pdfView.isFitEachPage(), pdfView.isLazyLayout(), pdfView.getDefaultPage(),
+                        pdfView.getPageSizeCalculatorHandler());
+                if (pdfFile.isLayoutEstimated()) {
+                    // otherwise all pages were measured, which is reported as LAYOUT_COMPLETE
+                    publishProgress(LoadStage.FIRST_PAGES_MEASURED);
+                }
                 return null;
             } else {
                 return new NullPointerException("pdfView == null");
@@ -64,10 +77,35 @@ class DecodingAsyncTask extends AsyncTask<Void, Void, Throwable> {
         }
     }
 
+    /** Open one instance of the document for each rendering thread, if the backend can render in parallel */
+    private List<DocumentEngine> openDocumentEngines(PDFView pdfView) throws IOException {
+        List<DocumentEngine> documentEngines = new ArrayList<>();
+        documentEngines.add(renderBackend.open(pdfView.getContext(), docSource, password));
+        int renderThreads = renderBackend.supportsParallelRendering() ? pdfView.getRenderThreads() : 1;
+        for (int i = 1; i < renderThreads && !cancelled; i++) {
+            try {
+                documentEngines.add(renderBackend.open(pdfView.getContext(), docSource, password));
+            } catch (Exception e) {
+                // some sources can be read only once, render with fewer threads
+                Log.w(TAG, "Cannot open document for rendering thread " + i, e);
+                break;
+            }
+        }
+        return documentEngines;
+    }
+
     private Size getViewSize(PDFView pdfView) {
         return new Size(pdfView.getWidth(), pdfView.getHeight());
     }
 
+    @Override
+    protected void onProgressUpdate(LoadStage... stages) {
+        PDFView pdfView = pdfViewReference.get();
+        if (pdfView != null && !cancelled) {
+            pdfView.onLoadStage(stages[0]);
+        }
+    }
+
     @Override
     protected void onPostExecute(Throwable t) {
         PDFView pdfView = pdfViewReference.get();
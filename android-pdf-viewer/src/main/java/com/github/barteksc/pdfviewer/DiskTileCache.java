@@ -0,0 +1,449 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+import android.os.Process;
+import android.util.Log;
+
+import com.github.barteksc.pdfviewer.model.PagePart;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.barteksc.pdfviewer.util.Constants.Cache.DISK_CACHE_WRITE_QUEUE_SIZE;
+
+/**
+ * Second level cache of rendered parts, stored as raw pixels in the cache directory of the application.
+ * Parts evicted from {@link CacheManager} are written by a single background thread,
+ * and read back by the rendering thread before the part is rendered again.
+ * Files of all documents share one size limit, least recently used files are deleted first.
+ * Caches using the same directory share one index, so the limit holds for all of them together.
+ */
+class DiskTileCache {
+
+    private static final String TAG = DiskTileCache.class.getSimpleName();
+
+    private static final String DIRECTORY_NAME = "pdfviewer-tiles";
+
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private static final int MAGIC = 0x50445654;
+
+    /** Magic, width, height and config of the bitmap, followed by its pixels */
+    private static final int HEADER_SIZE = 4 * 4;
+
+    /** Indexes by canonical path of their root directory */
+    private static final Map<String, Index> INDEXES = new HashMap<>();
+
+    private final File documentDir;
+
+    private final String documentDirName;
+
+    private final Index index;
+
+    private final BitmapPool bitmapPool;
+
+    private final ThreadPoolExecutor writer;
+
+    /** Used only by the writer thread */
+    private ByteBuffer writeBuffer;
+
+    private final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+    /** Buffers of rendering threads for reading files, reused between reads */
+    private final ThreadLocal<ByteBuffer> readBuffers = new ThreadLocal<>();
+
+    /**
+     * @param documentFingerprint identifies the document and its content, for example a hash of the file
+     * @param annotationRendering parts with annotations are kept separately
+     * @param maxBytes            maximum size of files of all documents, in bytes
+     */
+    DiskTileCache(Context context, String documentFingerprint, boolean annotationRendering,
+                  long maxBytes, BitmapPool bitmapPool) {
+        this.bitmapPool = bitmapPool;
+        File rootDir = new File(context.getCacheDir(), DIRECTORY_NAME);
+        documentDirName = sanitize(documentFingerprint) + (annotationRendering ? "-annotations" : "");
+        documentDir = new File(rootDir, documentDirName);
+        index = getIndex(rootDir);
+        final boolean loadIndex;
+        synchronized (index) {
+            index.maxBytes = maxBytes;
+            loadIndex = !index.loadStarted;
+            index.loadStarted = true;
+            if (index.loaded) {
+                index.trimToSize();
+            }
+        }
+
+        writer = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(DISK_CACHE_WRITE_QUEUE_SIZE), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                return new Thread(runnable, "PDF disk cache");
+            }
+        });
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                if (loadIndex) {
+                    index.load();
+                }
+            }
+        });
+    }
+
+    /**
+     * Write part asynchronously. Its bitmap is returned to the pool when written,
+     * or immediately if too many parts are waiting to be written.
+     *
+     * @param recycle recycle bitmap instead of returning it to the pool
+     */
+    void put(final PagePart part, final boolean recycle) {
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        write(part);
+                    } finally {
+                        release(part.getRenderedBitmap(), recycle);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            release(part.getRenderedBitmap(), recycle);
+        }
+    }
+
+    /**
+     * Write parts asynchronously by a single task, so they take only one place in the queue.
+     * Each bitmap is returned to the pool when written, or immediately if too many tasks are waiting.
+     *
+     * @param recycle recycle bitmaps instead of returning them to the pool
+     */
+    void putAll(final List<PagePart> parts, final boolean recycle) {
+        if (parts.isEmpty()) {
+            return;
+        }
+        try {
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (PagePart part : parts) {
+                        try {
+                            write(part);
+                        } finally {
+                            release(part.getRenderedBitmap(), recycle);
+                        }
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            for (PagePart part : parts) {
+                release(part.getRenderedBitmap(), recycle);
+            }
+        }
+    }
+
+    /**
+     * Read part from the disk
+     *
+     * @return bitmap from the pool with pixels of the part or null if it is not stored
+     */
+    Bitmap get(long key, RectF bounds, int width, int height, Bitmap.Config config) {
+        String name = getFileName(key, bounds, width, height, config);
+        synchronized (index) {
+            if (!index.loaded || index.files.get(documentDirName + File.separator + name) == null) {
+                return null;
+            }
+        }
+
+        File file = new File(documentDir, name);
+        RandomAccessFile randomAccessFile = null;
+        Bitmap bitmap = null;
+        try {
+            randomAccessFile = new RandomAccessFile(file, "r");
+            FileChannel channel = randomAccessFile.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return null;
+            }
+            ByteBuffer buffer = getReadBuffer((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // reads until the whole file is in the buffer
+            }
+            buffer.flip();
+            if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC
+                    || buffer.getInt() != width || buffer.getInt() != height
+                    || buffer.getInt() != config.ordinal()) {
+                return null;
+            }
+            bitmap = bitmapPool.acquire(width, height, config);
+            if (buffer.remaining() < bitmap.getByteCount()) {
+                bitmapPool.release(bitmap);
+                return null;
+            }
+            bitmap.copyPixelsFromBuffer(buffer);
+            file.setLastModified(System.currentTimeMillis());
+            return bitmap;
+        } catch (IOException | RuntimeException e) {
+            Log.w(TAG, "Cannot read cached part " + file, e);
+            if (bitmap != null) {
+                bitmapPool.release(bitmap);
+            }
+            return null;
+        } finally {
+            closeQuietly(randomAccessFile);
+        }
+    }
+
+    /** Stop writer thread after all queued parts are written */
+    void close() {
+        writer.shutdown();
+    }
+
+    private void write(PagePart part) {
+        Bitmap bitmap = part.getRenderedBitmap();
+        if (bitmap.isRecycled()) {
+            return;
+        }
+        String name = getFileName(part.getKey(), part.getPageRelativeBounds(), bitmap.getWidth(), bitmap.getHeight(),
+                bitmap.getConfig());
+        String path = documentDirName + File.separator + name;
+        synchronized (index) {
+            if (index.files.get(path) != null) {
+                return;
+            }
+        }
+
+        int pixelBytes = bitmap.getByteCount();
+        if (writeBuffer == null || writeBuffer.capacity() < pixelBytes) {
+            writeBuffer = ByteBuffer.allocate(pixelBytes);
+        }
+        writeBuffer.clear();
+        bitmap.copyPixelsToBuffer(writeBuffer);
+        writeBuffer.flip();
+        header.clear();
+        header.putInt(MAGIC).putInt(bitmap.getWidth()).putInt(bitmap.getHeight()).putInt(bitmap.getConfig().ordinal());
+        header.flip();
+
+        if (!documentDir.isDirectory() && !documentDir.mkdirs()) {
+            return;
+        }
+        File temp = new File(documentDir, name + TEMP_SUFFIX);
+        File file = new File(documentDir, name);
+        FileOutputStream output = null;
+        try {
+            output = new FileOutputStream(temp);
+            FileChannel channel = output.getChannel();
+            while (header.hasRemaining()) {
+                channel.write(header);
+            }
+            while (writeBuffer.hasRemaining()) {
+                channel.write(writeBuffer);
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Cannot write cached part " + file, e);
+            closeQuietly(output);
+            temp.delete();
+            return;
+        }
+        closeQuietly(output);
+
+        // readers never see partially written files
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return;
+        }
+        synchronized (index) {
+            index.add(path, file.length());
+            index.trimToSize();
+        }
+    }
+
+    /** Get cleared buffer of the calling thread, limited to given size */
+    private ByteBuffer getReadBuffer(int size) {
+        ByteBuffer buffer = readBuffers.get();
+        if (buffer == null || buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(size);
+            readBuffers.set(buffer);
+        }
+        buffer.clear();
+        buffer.limit(size);
+        return buffer;
+    }
+
+    private void release(Bitmap bitmap, boolean recycle) {
+        if (recycle) {
+            bitmap.recycle();
+        } else {
+            bitmapPool.release(bitmap);
+        }
+    }
+
+    /**
+     * Bounds and size are part of the name, because the same key covers different part of the page
+     * when layout changes, and is rendered at different size when the view is resized
+     */
+    private static String getFileName(long key, RectF bounds, int width, int height, Bitmap.Config config) {
+        int boundsHash = Arrays.hashCode(new float[]{bounds.left, bounds.top, bounds.right, bounds.bottom});
+        return Long.toHexString(key) + "-" + Integer.toHexString(boundsHash) + "-" + width + "x" + height
+                + "-" + config.ordinal();
+    }
+
+    /** Get index shared by all caches using given root directory */
+    private static Index getIndex(File rootDir) {
+        String path;
+        try {
+            path = rootDir.getCanonicalPath();
+        } catch (IOException e) {
+            path = rootDir.getAbsolutePath();
+        }
+        synchronized (INDEXES) {
+            Index index = INDEXES.get(path);
+            if (index == null) {
+                index = new Index(rootDir);
+                INDEXES.put(path, index);
+            }
+            return index;
+        }
+    }
+
+    private static String sanitize(String name) {
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    /**
+     * Files of all documents in one root directory. Guarded by its own monitor,
+     * loaded once by the writer of the first cache using the directory
+     */
+    private static class Index {
+        final File rootDir;
+
+        /** Sizes of files by their path relative to the root directory, in access order */
+        final LinkedHashMap<String, Long> files = new LinkedHashMap<>(64, 0.75f, true);
+
+        long sizeBytes = 0;
+
+        /** Limit set by the most recently created cache */
+        long maxBytes;
+
+        boolean loadStarted = false;
+
+        boolean loaded = false;
+
+        Index(File rootDir) {
+            this.rootDir = rootDir;
+        }
+
+        void add(String path, long length) {
+            Long previous = files.put(path, length);
+            if (previous != null) {
+                sizeBytes -= previous;
+            }
+            sizeBytes += length;
+        }
+
+        void trimToSize() {
+            Iterator<Map.Entry<String, Long>> iterator = files.entrySet().iterator();
+            while (sizeBytes > maxBytes && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                new File(rootDir, eldest.getKey()).delete();
+                sizeBytes -= eldest.getValue();
+                iterator.remove();
+            }
+        }
+
+        /** Index files left by previous sessions, least recently used first */
+        void load() {
+            List<File> found = new ArrayList<>();
+            File[] dirs = rootDir.listFiles();
+            if (dirs != null) {
+                for (File dir : dirs) {
+                    File[] dirFiles = dir.listFiles();
+                    if (dirFiles == null) {
+                        continue;
+                    }
+                    for (File file : dirFiles) {
+                        if (file.getName().endsWith(TEMP_SUFFIX)) {
+                            file.delete();
+                        } else {
+                            found.add(file);
+                        }
+                    }
+                }
+            }
+            Collections.sort(found, new Comparator<File>() {
+                @Override
+                public int compare(File file1, File file2) {
+                    long modified1 = file1.lastModified();
+                    long modified2 = file2.lastModified();
+                    return modified1 < modified2 ? -1 : (modified1 == modified2 ? 0 : 1);
+                }
+            });
+
+            synchronized (this) {
+                // files written since the load started stay the most recently used ones
+                LinkedHashMap<String, Long> written = new LinkedHashMap<>(files);
+                files.clear();
+                sizeBytes = 0;
+                for (File file : found) {
+                    String path = file.getParentFile().getName() + File.separator + file.getName();
+                    if (!written.containsKey(path)) {
+                        add(path, file.length());
+                    }
+                }
+                for (Map.Entry<String, Long> entry : written.entrySet()) {
+                    add(entry.getKey(), entry.getValue());
+                }
+                trimToSize();
+                loaded = true;
+            }
+        }
+    }
+}
@@ -1,1660 +1,2433 @@
-/**
- * Copyright 2016 Bartosz Schiller
- * <p/>
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * <p/>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p/>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.github.barteksc.pdfviewer;
-
-import android.content.Context;
-import android.graphics.Bitmap;
-import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.ColorMatrix;
-import android.graphics.ColorMatrixColorFilter;
-import android.graphics.Paint;
-import android.graphics.Paint.Style;
-import android.graphics.PaintFlagsDrawFilter;
-import android.graphics.PointF;
-import android.graphics.Rect;
-import android.graphics.RectF;
-import android.graphics.drawable.Drawable;
-import android.net.Uri;
-import android.os.AsyncTask;
-import android.os.Build;
-import android.os.HandlerThread;
-import android.util.AttributeSet;
-import android.util.Log;
-import android.widget.RelativeLayout;
-
-import com.github.barteksc.pdfviewer.calculator.DefaultPageSizeCalculatorHandler;
-import com.github.barteksc.pdfviewer.calculator.PageSizeCalculatorHandler;
-import com.github.barteksc.pdfviewer.exception.PageRenderingException;
-import com.github.barteksc.pdfviewer.link.DefaultLinkHandler;
-import com.github.barteksc.pdfviewer.link.LinkHandler;
-import com.github.barteksc.pdfviewer.listener.Callbacks;
-import com.github.barteksc.pdfviewer.listener.OnDrawListener;
-import com.github.barteksc.pdfviewer.listener.OnErrorListener;
-import com.github.barteksc.pdfviewer.listener.OnLoadCompleteListener;
-import com.github.barteksc.pdfviewer.listener.OnLongPressListener;
-import com.github.barteksc.pdfviewer.listener.OnPageChangeListener;
-import com.github.barteksc.pdfviewer.listener.OnPageErrorListener;
-import com.github.barteksc.pdfviewer.listener.OnPageScrollListener;
-import com.github.barteksc.pdfviewer.listener.OnRenderListener;
-import com.github.barteksc.pdfviewer.listener.OnTapListener;
-import com.github.barteksc.pdfviewer.model.PagePart;
-import com.github.barteksc.pdfviewer.scroll.ScrollHandle;
-import com.github.barteksc.pdfviewer.source.AssetSource;
-import com.github.barteksc.pdfviewer.source.ByteArraySource;
-import com.github.barteksc.pdfviewer.source.DocumentSource;
-import com.github.barteksc.pdfviewer.source.FileSource;
-import com.github.barteksc.pdfviewer.source.InputStreamSource;
-import com.github.barteksc.pdfviewer.source.UriSource;
-import com.github.barteksc.pdfviewer.util.Constants;
-import com.github.barteksc.pdfviewer.util.FitPolicy;
-import com.github.barteksc.pdfviewer.util.MathUtils;
-import com.github.barteksc.pdfviewer.util.SnapEdge;
-import com.github.barteksc.pdfviewer.util.Util;
-import com.shockwave.pdfium.PdfDocument;
-import com.shockwave.pdfium.PdfiumCore;
-import com.shockwave.pdfium.util.Size;
-import com.shockwave.pdfium.util.SizeF;
-
-import java.io.File;
-import java.io.InputStream;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-
-/**
- * It supports animations, zoom, cache, and swipe.
- * <p>
- * To fully understand this class you must know its principles :
- * - The PDF document is seen as if we always want to draw all the pages.
- * - The thing is that we only draw the visible parts.
- * - All parts are the same size, this is because we can't interrupt a native page rendering,
- * so we need these renderings to be as fast as possible, and be able to interrupt them
- * as soon as we can.
- * - The parts are loaded when the current offset or the current zoom level changes
- * <p>
- * Important :
- * - DocumentPage = A page of the PDF document.
- * - UserPage = A page as defined by the user.
- * By default, they're the same. But the user can change the pages order
- * using {@link #load(DocumentSource, String, int[])}. In this
- * particular case, a userPage of 5 can refer to a documentPage of 17.
- */
-public class PDFView extends RelativeLayout {
-
-    private static final String TAG = PDFView.class.getSimpleName();
-
-    public static final float DEFAULT_MAX_SCALE = 3.0f;
-    public static final float DEFAULT_MID_SCALE = 1.75f;
-    public static final float DEFAULT_MIN_SCALE = 1.0f;
-
-    private float minZoom = DEFAULT_MIN_SCALE;
-    private float midZoom = DEFAULT_MID_SCALE;
-    private float maxZoom = DEFAULT_MAX_SCALE;
-
-    /**
-     * START - scrolling in first page direction
-     * END - scrolling in last page direction
-     * NONE - not scrolling
-     */
-    enum ScrollDir {
-        NONE, START, END
-    }
-
-    private ScrollDir scrollDir = ScrollDir.NONE;
-
-    /** Rendered parts go to the cache manager */
-    CacheManager cacheManager;
-
-    /** Animation manager manage all offset and zoom animation */
-    private AnimationManager animationManager;
-
-    /** Drag manager manage all touch events */
-    private DragPinchManager dragPinchManager;
-
-    PdfFile pdfFile;
-
-    /** The index of the current sequence */
-    private int currentPage;
-
-    /**
-     * If you picture all the pages side by side in their optimal width,
-     * and taking into account the zoom level, the current offset is the
-     * position of the left border of the screen in this big picture
-     */
-    private float currentXOffset = 0;
-
-    /**
-     * If you picture all the pages side by side in their optimal width,
-     * and taking into account the zoom level, the current offset is the
-     * position of the left border of the screen in this big picture
-     */
-    private float currentYOffset = 0;
-
-    /** The zoom level, always >= 1 */
-    private float zoom = 1f;
-
-    /** True if the PDFView has been recycled */
-    private boolean recycled = true;
-
-    /** Current state of the view */
-    private State state = State.DEFAULT;
-
-    /** Async task used during the loading phase to decode a PDF document */
-    private DecodingAsyncTask decodingAsyncTask;
-
-    /** The thread {@link #renderingHandler} will run on */
-    private HandlerThread renderingHandlerThread;
-    /** Handler always waiting in the background and rendering tasks */
-    RenderingHandler renderingHandler;
-
-    private PagesLoader pagesLoader;
-
-    Callbacks callbacks = new Callbacks();
-
-    /** Paint object for drawing */
-    private Paint paint;
-
-    /** Paint object for drawing debug stuff */
-    private Paint debugPaint;
-
-    /** Policy for fitting pages to screen */
-    private FitPolicy pageFitPolicy = FitPolicy.WIDTH;
-
-    private PageSizeCalculatorHandler pageSizeCalculatorHandler;
-
-    private boolean fitEachPage = false;
-
-    private int defaultPage = 0;
-
-    /** True if should scroll through pages vertically instead of horizontally */
-    private boolean swipeVertical = true;
-
-    private boolean enableSwipe = true;
-
-    private boolean doubletapEnabled = true;
-
-    private boolean nightMode = false;
-
-    private boolean pageSnap = true;
-
-    /** Pdfium core for loading and rendering PDFs */
-    private PdfiumCore pdfiumCore;
-
-    private ScrollHandle scrollHandle;
-
-    private boolean isScrollHandleInit = false;
-
-    ScrollHandle getScrollHandle() {
-        return scrollHandle;
-    }
-
-    /**
-     * True if bitmap should use ARGB_8888 format and take more memory
-     * False if bitmap should be compressed by using RGB_565 format and take less memory
-     */
-    private boolean bestQuality = false;
-
-    /**
-     * True if annotations should be rendered
-     * False otherwise
-     */
-    private boolean annotationRendering = false;
-
-    /**
-     * True if the view should render during scaling<br/>
-     * Can not be forced on older API versions (< Build.VERSION_CODES.KITKAT) as the GestureDetector does
-     * not detect scrolling while scaling.<br/>
-     * False otherwise
-     */
-    private boolean renderDuringScale = false;
-
-    /** Antialiasing and bitmap filtering */
-    private boolean enableAntialiasing = true;
-    private PaintFlagsDrawFilter antialiasFilter =
-            new PaintFlagsDrawFilter(0, Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
-
-    /** Spacing between pages, in px */
-    private int spacingPx = 0;
-
-    /** Add dynamic spacing to fit each page separately on the screen. */
-    private boolean autoSpacing = false;
-
-    /** Fling a single page at a time */
-    private boolean pageFling = true;
-
-    /** Pages numbers used when calling onDrawAllListener */
-    private List<Integer> onDrawPagesNums = new ArrayList<>(10);
-
-    /** Holds info whether view has been added to layout and has width and height */
-    private boolean hasSize = false;
-
-    /** Holds last used Configurator that should be loaded when view has size */
-    private Configurator waitingDocumentConfigurator;
-
-    /** Construct the initial view */
-    public PDFView(Context context, AttributeSet set) {
-        super(context, set);
-
-        renderingHandlerThread = new HandlerThread("PDF renderer");
-
-        if (isInEditMode()) {
-            return;
-        }
-
-        cacheManager = new CacheManager();
-        animationManager = new AnimationManager(this);
-        dragPinchManager = new DragPinchManager(this, animationManager);
-        pagesLoader = new PagesLoader(this);
-
-        paint = new Paint();
-        debugPaint = new Paint();
-        debugPaint.setStyle(Style.STROKE);
-
-        pdfiumCore = new PdfiumCore(context);
-        setWillNotDraw(false);
-    }
-
-    private void load(DocumentSource docSource, String password) {
-        load(docSource, password, null);
-    }
-
-    private void load(DocumentSource docSource, String password, int[] userPages) {
-
-        if (!recycled) {
-            throw new IllegalStateException("Don't call load on a PDF View without recycling it first.");
-        }
-
-        recycled = false;
-        // Start decoding document
-        decodingAsyncTask = new DecodingAsyncTask(docSource, password, userPages, this, pdfiumCore);
-        decodingAsyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-    }
-
-    /**
-     * Go to the given page.
-     *
-     * @param page Page index.
-     */
-    public void jumpTo(int page, boolean withAnimation) {
-        if (pdfFile == null) {
-            return;
-        }
-
-        page = pdfFile.determineValidPageNumberFrom(page);
-        float offset = page == 0 ? 0 : -pdfFile.getPageOffset(page, zoom);
-        if (swipeVertical) {
-            if (withAnimation) {
-                animationManager.startYAnimation(currentYOffset, offset);
-            } else {
-                moveTo(currentXOffset, offset);
-            }
-        } else {
-            if (withAnimation) {
-                animationManager.startXAnimation(currentXOffset, offset);
-            } else {
-                moveTo(offset, currentYOffset);
-            }
-        }
-        showPage(page);
-    }
-
-    public void jumpTo(int page) {
-        jumpTo(page, false);
-    }
-
-    void showPage(int pageNb) {
-        if (recycled) {
-            return;
-        }
-
-        // Check the page number and makes the
-        // difference between UserPages and DocumentPages
-        pageNb = pdfFile.determineValidPageNumberFrom(pageNb);
-        currentPage = pageNb;
-
-        loadPages();
-
-        if (scrollHandle != null && !documentFitsView()) {
-            scrollHandle.setPageNum(currentPage + 1);
-        }
-
-        callbacks.callOnPageChange(currentPage, pdfFile.getPagesCount());
-    }
-
-    /**
-     * Get current position as ratio of document length to visible area.
-     * 0 means that document start is visible, 1 that document end is visible
-     *
-     * @return offset between 0 and 1
-     */
-    public float getPositionOffset() {
-        float offset;
-        if (swipeVertical) {
-            offset = -currentYOffset / (pdfFile.getDocLen(zoom) - getHeight());
-        } else {
-            offset = -currentXOffset / (pdfFile.getDocLen(zoom) - getWidth());
-        }
-        return MathUtils.limit(offset, 0, 1);
-    }
-
-    /**
-     * @param progress   must be between 0 and 1
-     * @param moveHandle whether to move scroll handle
-     * @see PDFView#getPositionOffset()
-     */
-    public void setPositionOffset(float progress, boolean moveHandle) {
-        if (swipeVertical) {
-            moveTo(currentXOffset, (-pdfFile.getDocLen(zoom) + getHeight()) * progress, moveHandle);
-        } else {
-            moveTo((-pdfFile.getDocLen(zoom) + getWidth()) * progress, currentYOffset, moveHandle);
-        }
-        loadPageByOffset();
-    }
-
-    public void setPositionOffset(float progress) {
-        setPositionOffset(progress, true);
-    }
-
-    public void stopFling() {
-        animationManager.stopFling();
-    }
-
-    public int getPageCount() {
-        if (pdfFile == null) {
-            return 0;
-        }
-        return pdfFile.getPagesCount();
-    }
-
-    public void setSwipeEnabled(boolean enableSwipe) {
-        this.enableSwipe = enableSwipe;
-    }
-
-    public void setNightMode(boolean nightMode) {
-        this.nightMode = nightMode;
-        if (nightMode) {
-            ColorMatrix colorMatrixInverted =
-                    new ColorMatrix(new float[]{
-                            -1, 0, 0, 0, 255,
-                            0, -1, 0, 0, 255,
-                            0, 0, -1, 0, 255,
-                            0, 0, 0, 1, 0});
-
-            ColorMatrixColorFilter filter = new ColorMatrixColorFilter(colorMatrixInverted);
-            paint.setColorFilter(filter);
-        } else {
-            paint.setColorFilter(null);
-        }
-    }
-
-    void enableDoubletap(boolean enableDoubletap) {
-        this.doubletapEnabled = enableDoubletap;
-    }
-
-    boolean isDoubletapEnabled() {
-        return doubletapEnabled;
-    }
-
-    void onPageError(PageRenderingException ex) {
-        if (!callbacks.callOnPageError(ex.getPage(), ex.getCause())) {
-            Log.e(TAG, "Cannot open page " + ex.getPage(), ex.getCause());
-        }
-    }
-
-    public void recycle() {
-        waitingDocumentConfigurator = null;
-
-        animationManager.stopAll();
-        dragPinchManager.disable();
-
-        // Stop tasks
-        if (renderingHandler != null) {
-            renderingHandler.stop();
-            renderingHandler.removeMessages(RenderingHandler.MSG_RENDER_TASK);
-        }
-        if (decodingAsyncTask != null) {
-            decodingAsyncTask.cancel(true);
-        }
-
-        // Clear caches
-        cacheManager.recycle();
-
-        if (scrollHandle != null && isScrollHandleInit) {
-            scrollHandle.destroyLayout();
-        }
-
-        if (pdfFile != null) {
-            pdfFile.dispose();
-            pdfFile = null;
-        }
-
-        renderingHandler = null;
-        scrollHandle = null;
-        isScrollHandleInit = false;
-        currentXOffset = currentYOffset = 0;
-        zoom = 1f;
-        recycled = true;
-        callbacks = new Callbacks();
-        state = State.DEFAULT;
-    }
-
-    public boolean isRecycled() {
-        return recycled;
-    }
-
-    /** Handle fling animation */
-    @Override
-    public void computeScroll() {
-        super.computeScroll();
-        if (isInEditMode()) {
-            return;
-        }
-        animationManager.computeFling();
-    }
-
-    @Override
-    protected void onDetachedFromWindow() {
-        recycle();
-        if (renderingHandlerThread != null) {
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-                renderingHandlerThread.quitSafely();
-            } else {
-                renderingHandlerThread.quit();
-            }
-            renderingHandlerThread = null;
-        }
-        super.onDetachedFromWindow();
-    }
-
-    @Override
-    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
-        hasSize = true;
-        if (waitingDocumentConfigurator != null) {
-            waitingDocumentConfigurator.load();
-        }
-        if (isInEditMode() || state != State.SHOWN) {
-            return;
-        }
-
-        // calculates the position of the point which in the center of view relative to big strip
-        float centerPointInStripXOffset = -currentXOffset + oldw * 0.5f;
-        float centerPointInStripYOffset = -currentYOffset + oldh * 0.5f;
-
-        float relativeCenterPointInStripXOffset;
-        float relativeCenterPointInStripYOffset;
-
-        if (swipeVertical){
-            relativeCenterPointInStripXOffset = centerPointInStripXOffset / pdfFile.getMaxPageWidth();
-            relativeCenterPointInStripYOffset = centerPointInStripYOffset / pdfFile.getDocLen(zoom);
-        }else {
-            relativeCenterPointInStripXOffset = centerPointInStripXOffset / pdfFile.getDocLen(zoom);
-            relativeCenterPointInStripYOffset = centerPointInStripYOffset / pdfFile.getMaxPageHeight();
-        }
-
-        animationManager.stopAll();
-        pdfFile.recalculatePageSizes(new Size(w, h));
-
-        if (swipeVertical) {
-            currentXOffset = -relativeCenterPointInStripXOffset * pdfFile.getMaxPageWidth() + w * 0.5f;
-            currentYOffset = -relativeCenterPointInStripYOffset * pdfFile.getDocLen(zoom) + h * 0.5f ;
-        }else {
-            currentXOffset = -relativeCenterPointInStripXOffset * pdfFile.getDocLen(zoom) + w * 0.5f;
-            currentYOffset = -relativeCenterPointInStripYOffset * pdfFile.getMaxPageHeight() + h * 0.5f;
-        }
-        moveTo(currentXOffset,currentYOffset);
-        loadPageByOffset();
-    }
-
-    @Override
-    public boolean canScrollHorizontally(int direction) {
-        if (pdfFile == null) {
-            return true;
-        }
-
-        if (swipeVertical) {
-            if (direction < 0 && currentXOffset < 0) {
-                return true;
-            } else if (direction > 0 && currentXOffset + toCurrentScale(pdfFile.getMaxPageWidth()) > getWidth()) {
-                return true;
-            }
-        } else {
-            if (direction < 0 && currentXOffset < 0) {
-                return true;
-            } else if (direction > 0 && currentXOffset + pdfFile.getDocLen(zoom) > getWidth()) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    @Override
-    public boolean canScrollVertically(int direction) {
-        if (pdfFile == null) {
-            return true;
-        }
-
-        if (swipeVertical) {
-            if (direction < 0 && currentYOffset < 0) {
-                return true;
-            } else if (direction > 0 && currentYOffset + pdfFile.getDocLen(zoom) > getHeight()) {
-                return true;
-            }
-        } else {
-            if (direction < 0 && currentYOffset < 0) {
-                return true;
-            } else if (direction > 0 && currentYOffset + toCurrentScale(pdfFile.getMaxPageHeight()) > getHeight()) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-    @Override
-    protected void onDraw(Canvas canvas) {
-        if (isInEditMode()) {
-            return;
-        }
-        // As I said in this class javadoc, we can think of this canvas as a huge
-        // strip on which we draw all the images. We actually only draw the rendered
-        // parts, of course, but we render them in the place they belong in this huge
-        // strip.
-
-        // That's where Canvas.translate(x, y) becomes very helpful.
-        // This is the situation :
-        //  _______________________________________________
-        // |   			 |					 			   |
-        // | the actual  |					The big strip  |
-        // |	canvas	 | 								   |
-        // |_____________|								   |
-        // |_______________________________________________|
-        //
-        // If the rendered part is on the bottom right corner of the strip
-        // we can draw it but we won't see it because the canvas is not big enough.
-
-        // But if we call translate(-X, -Y) on the canvas just before drawing the object :
-        //  _______________________________________________
-        // |   			  					  _____________|
-        // |   The big strip     			 |			   |
-        // |		    					 |	the actual |
-        // |								 |	canvas	   |
-        // |_________________________________|_____________|
-        //
-        // The object will be on the canvas.
-        // This technique is massively used in this method, and allows
-        // abstraction of the screen position when rendering the parts.
-
-        // Draws background
-
-        if (enableAntialiasing) {
-            canvas.setDrawFilter(antialiasFilter);
-        }
-
-        Drawable bg = getBackground();
-        if (bg == null) {
-            canvas.drawColor(nightMode ? Color.BLACK : Color.WHITE);
-        } else {
-            bg.draw(canvas);
-        }
-
-        if (recycled) {
-            return;
-        }
-
-        if (state != State.SHOWN) {
-            return;
-        }
-
-        // Moves the canvas before drawing any element
-        float currentXOffset = this.currentXOffset;
-        float currentYOffset = this.currentYOffset;
-        canvas.translate(currentXOffset, currentYOffset);
-
-        // Draws thumbnails
-        for (PagePart part : cacheManager.getThumbnails()) {
-            drawPart(canvas, part);
-
-        }
-
-        // Draws parts
-        for (PagePart part : cacheManager.getPageParts()) {
-            drawPart(canvas, part);
-            if (callbacks.getOnDrawAll() != null
-                    && !onDrawPagesNums.contains(part.getPage())) {
-                onDrawPagesNums.add(part.getPage());
-            }
-        }
-
-        for (Integer page : onDrawPagesNums) {
-            drawWithListener(canvas, page, callbacks.getOnDrawAll());
-        }
-        onDrawPagesNums.clear();
-
-        drawWithListener(canvas, currentPage, callbacks.getOnDraw());
-
-        // Restores the canvas position
-        canvas.translate(-currentXOffset, -currentYOffset);
-    }
-
-    private void drawWithListener(Canvas canvas, int page, OnDrawListener listener) {
-        if (listener != null) {
-            float translateX, translateY;
-            if (swipeVertical) {
-                translateX = 0;
-                translateY = pdfFile.getPageOffset(page, zoom);
-            } else {
-                translateY = 0;
-                translateX = pdfFile.getPageOffset(page, zoom);
-            }
-
-            canvas.translate(translateX, translateY);
-            SizeF size = pdfFile.getPageSize(page);
-            listener.onLayerDrawn(canvas,
-                    toCurrentScale(size.getWidth()),
-                    toCurrentScale(size.getHeight()),
-                    page);
-
-            canvas.translate(-translateX, -translateY);
-        }
-    }
-
-    /** Draw a given PagePart on the canvas */
-    private void drawPart(Canvas canvas, PagePart part) {
-        // Can seem strange, but avoid lot of calls
-        RectF pageRelativeBounds = part.getPageRelativeBounds();
-        Bitmap renderedBitmap = part.getRenderedBitmap();
-
-        if (renderedBitmap.isRecycled()) {
-            return;
-        }
-
-        // Move to the target page
-        float localTranslationX = 0;
-        float localTranslationY = 0;
-        SizeF size = pdfFile.getPageSize(part.getPage());
-
-        if (swipeVertical) {
-            localTranslationY = pdfFile.getPageOffset(part.getPage(), zoom);
-            float maxWidth = pdfFile.getMaxPageWidth();
-            localTranslationX = toCurrentScale(maxWidth - size.getWidth()) / 2;
-        } else {
-            localTranslationX = pdfFile.getPageOffset(part.getPage(), zoom);
-            float maxHeight = pdfFile.getMaxPageHeight();
-            localTranslationY = toCurrentScale(maxHeight - size.getHeight()) / 2;
-        }
-        canvas.translate(localTranslationX, localTranslationY);
-
-        Rect srcRect = new Rect(0, 0, renderedBitmap.getWidth(),
-                renderedBitmap.getHeight());
-
-        float offsetX = toCurrentScale(pageRelativeBounds.left * size.getWidth());
-        float offsetY = toCurrentScale(pageRelativeBounds.top * size.getHeight());
-        float width = toCurrentScale(pageRelativeBounds.width() * size.getWidth());
-        float height = toCurrentScale(pageRelativeBounds.height() * size.getHeight());
-
-        // If we use float values for this rectangle, there will be
-        // a possible gap between page parts, especially when
-        // the zoom level is high.
-        RectF dstRect = new RectF((int) offsetX, (int) offsetY,
-                (int) (offsetX + width),
-                (int) (offsetY + height));
-
-        // Check if bitmap is in the screen
-        float translationX = currentXOffset + localTranslationX;
-        float translationY = currentYOffset + localTranslationY;
-        if (translationX + dstRect.left >= getWidth() || translationX + dstRect.right <= 0 ||
-                translationY + dstRect.top >= getHeight() || translationY + dstRect.bottom <= 0) {
-            canvas.translate(-localTranslationX, -localTranslationY);
-            return;
-        }
-
-        canvas.drawBitmap(renderedBitmap, srcRect, dstRect, paint);
-
-        if (Constants.DEBUG_MODE) {
-            debugPaint.setColor(part.getPage() % 2 == 0 ? Color.RED : Color.BLUE);
-            canvas.drawRect(dstRect, debugPaint);
-        }
-
-        // Restore the canvas position
-        canvas.translate(-localTranslationX, -localTranslationY);
-
-    }
-
-    /**
-     * Load all the parts around the center of the screen,
-     * taking into account X and Y offsets, zoom level, and
-     * the current page displayed
-     */
-    public void loadPages() {
-        if (pdfFile == null || renderingHandler == null) {
-            return;
-        }
-
-        // Cancel all current tasks
-        renderingHandler.removeMessages(RenderingHandler.MSG_RENDER_TASK);
-        cacheManager.makeANewSet();
-
-        pagesLoader.loadPages();
-        redraw();
-    }
-
-    /** Called when the PDF is loaded */
-    void loadComplete(PdfFile pdfFile) {
-        state = State.LOADED;
-
-        this.pdfFile = pdfFile;
-
-        if (!renderingHandlerThread.isAlive()) {
-            renderingHandlerThread.start();
-        }
-        renderingHandler = new RenderingHandler(renderingHandlerThread.getLooper(), this);
-        renderingHandler.start();
-
-        if (scrollHandle != null) {
-            scrollHandle.setupLayout(this);
-            isScrollHandleInit = true;
-        }
-
-        dragPinchManager.enable();
-
-        callbacks.callOnLoadComplete(pdfFile.getPagesCount());
-
-        jumpTo(defaultPage, false);
-    }
-
-    void loadError(Throwable t) {
-        state = State.ERROR;
-        // store reference, because callbacks will be cleared in recycle() method
-        OnErrorListener onErrorListener = callbacks.getOnError();
-        recycle();
-        invalidate();
-        if (onErrorListener != null) {
-            onErrorListener.onError(t);
-        } else {
-            Log.e("PDFView", "load pdf error", t);
-        }
-    }
-
-    void redraw() {
-        invalidate();
-    }
-
-    /**
-     * Called when a rendering task is over and
-     * a PagePart has been freshly created.
-     *
-     * @param part The created PagePart.
-     */
-    public void onBitmapRendered(PagePart part) {
-        // when it is first rendered part
-        if (state == State.LOADED) {
-            state = State.SHOWN;
-            callbacks.callOnRender(pdfFile.getPagesCount());
-        }
-
-        if (part.isThumbnail()) {
-            cacheManager.cacheThumbnail(part);
-        } else {
-            cacheManager.cachePart(part);
-        }
-        redraw();
-    }
-
-    public void moveTo(float offsetX, float offsetY) {
-        moveTo(offsetX, offsetY, true);
-    }
-
-    /**
-     * Move to the given X and Y offsets, but check them ahead of time
-     * to be sure not to go outside the the big strip.
-     *
-     * @param offsetX    The big strip X offset to use as the left border of the screen.
-     * @param offsetY    The big strip Y offset to use as the right border of the screen.
-     * @param moveHandle whether to move scroll handle or not
-     */
-    public void moveTo(float offsetX, float offsetY, boolean moveHandle) {
-        if (swipeVertical) {
-            // Check X offset
-            float scaledPageWidth = toCurrentScale(pdfFile.getMaxPageWidth());
-            if (scaledPageWidth < getWidth()) {
-                offsetX = getWidth() / 2 - scaledPageWidth / 2;
-            } else {
-                if (offsetX > 0) {
-                    offsetX = 0;
-                } else if (offsetX + scaledPageWidth < getWidth()) {
-                    offsetX = getWidth() - scaledPageWidth;
-                }
-            }
-
-            // Check Y offset
-            float contentHeight = pdfFile.getDocLen(zoom);
-            if (contentHeight < getHeight()) { // whole document height visible on screen
-                offsetY = (getHeight() - contentHeight) / 2;
-            } else {
-                if (offsetY > 0) { // top visible
-                    offsetY = 0;
-                } else if (offsetY + contentHeight < getHeight()) { // bottom visible
-                    offsetY = -contentHeight + getHeight();
-                }
-            }
-
-            if (offsetY < currentYOffset) {
-                scrollDir = ScrollDir.END;
-            } else if (offsetY > currentYOffset) {
-                scrollDir = ScrollDir.START;
-            } else {
-                scrollDir = ScrollDir.NONE;
-            }
-        } else {
-            // Check Y offset
-            float scaledPageHeight = toCurrentScale(pdfFile.getMaxPageHeight());
-            if (scaledPageHeight < getHeight()) {
-                offsetY = getHeight() / 2 - scaledPageHeight / 2;
-            } else {
-                if (offsetY > 0) {
-                    offsetY = 0;
-                } else if (offsetY + scaledPageHeight < getHeight()) {
-                    offsetY = getHeight() - scaledPageHeight;
-                }
-            }
-
-            // Check X offset
-            float contentWidth = pdfFile.getDocLen(zoom);
-            if (contentWidth < getWidth()) { // whole document width visible on screen
-                offsetX = (getWidth() - contentWidth) / 2;
-            } else {
-                if (offsetX > 0) { // left visible
-                    offsetX = 0;
-                } else if (offsetX + contentWidth < getWidth()) { // right visible
-                    offsetX = -contentWidth + getWidth();
-                }
-            }
-
-            if (offsetX < currentXOffset) {
-                scrollDir = ScrollDir.END;
-            } else if (offsetX > currentXOffset) {
-                scrollDir = ScrollDir.START;
-            } else {
-                scrollDir = ScrollDir.NONE;
-            }
-        }
-
-        currentXOffset = offsetX;
-        currentYOffset = offsetY;
-        float positionOffset = getPositionOffset();
-
-        if (moveHandle && scrollHandle != null && !documentFitsView()) {
-            scrollHandle.setScroll(positionOffset);
-        }
-
-        callbacks.callOnPageScroll(getCurrentPage(), positionOffset);
-
-        redraw();
-    }
-
-    void loadPageByOffset() {
-        if (0 == pdfFile.getPagesCount()) {
-            return;
-        }
-
-        float offset, screenCenter;
-        if (swipeVertical) {
-            offset = currentYOffset;
-            screenCenter = ((float) getHeight()) / 2;
-        } else {
-            offset = currentXOffset;
-            screenCenter = ((float) getWidth()) / 2;
-        }
-
-        int page = pdfFile.getPageAtOffset(-(offset - screenCenter), zoom);
-
-        if (page >= 0 && page <= pdfFile.getPagesCount() - 1 && page != getCurrentPage()) {
-            showPage(page);
-        } else {
-            loadPages();
-        }
-    }
-
-    /**
-     * Animate to the nearest snapping position for the current SnapPolicy
-     */
-    public void performPageSnap() {
-        if (!pageSnap || pdfFile == null || pdfFile.getPagesCount() == 0) {
-            return;
-        }
-        int centerPage = findFocusPage(currentXOffset, currentYOffset);
-        SnapEdge edge = findSnapEdge(centerPage);
-        if (edge == SnapEdge.NONE) {
-            return;
-        }
-
-        float offset = snapOffsetForPage(centerPage, edge);
-        if (swipeVertical) {
-            animationManager.startYAnimation(currentYOffset, -offset);
-        } else {
-            animationManager.startXAnimation(currentXOffset, -offset);
-        }
-    }
-
-    /**
-     * Find the edge to snap to when showing the specified page
-     */
-    SnapEdge findSnapEdge(int page) {
-        if (!pageSnap || page < 0) {
-            return SnapEdge.NONE;
-        }
-        float currentOffset = swipeVertical ? currentYOffset : currentXOffset;
-        float offset = -pdfFile.getPageOffset(page, zoom);
-        int length = swipeVertical ? getHeight() : getWidth();
-        float pageLength = pdfFile.getPageLength(page, zoom);
-
-        if (length >= pageLength) {
-            return SnapEdge.CENTER;
-        } else if (currentOffset >= offset) {
-            return SnapEdge.START;
-        } else if (offset - pageLength > currentOffset - length) {
-            return SnapEdge.END;
-        } else {
-            return SnapEdge.NONE;
-        }
-    }
-
-    /**
-     * Get the offset to move to in order to snap to the page
-     */
-    float snapOffsetForPage(int pageIndex, SnapEdge edge) {
-        float offset = pdfFile.getPageOffset(pageIndex, zoom);
-
-        float length = swipeVertical ? getHeight() : getWidth();
-        float pageLength = pdfFile.getPageLength(pageIndex, zoom);
-
-        if (edge == SnapEdge.CENTER) {
-            offset = offset - length / 2f + pageLength / 2f;
-        } else if (edge == SnapEdge.END) {
-            offset = offset - length + pageLength;
-        }
-        return offset;
-    }
-
-    int findFocusPage(float xOffset, float yOffset) {
-        float currOffset = swipeVertical ? yOffset : xOffset;
-        float length = swipeVertical ? getHeight() : getWidth();
-        // make sure first and last page can be found
-        if (currOffset > -1) {
-            return 0;
-        } else if (currOffset < -pdfFile.getDocLen(zoom) + length + 1) {
-            return pdfFile.getPagesCount() - 1;
-        }
-        // else find page in center
-        float center = currOffset - length / 2f;
-        return pdfFile.getPageAtOffset(-center, zoom);
-    }
-
-    /**
-     * @return true if single page fills the entire screen in the scrolling direction
-     */
-    public boolean pageFillsScreen() {
-        float start = -pdfFile.getPageOffset(currentPage, zoom);
-        float end = start - pdfFile.getPageLength(currentPage, zoom);
-        if (isSwipeVertical()) {
-            return start > currentYOffset && end < currentYOffset - getHeight();
-        } else {
-            return start > currentXOffset && end < currentXOffset - getWidth();
-        }
-    }
-
-    /**
-     * Move relatively to the current position.
-     *
-     * @param dx The X difference you want to apply.
-     * @param dy The Y difference you want to apply.
-     * @see #moveTo(float, float)
-     */
-    public void moveRelativeTo(float dx, float dy) {
-        moveTo(currentXOffset + dx, currentYOffset + dy);
-    }
-
-    /**
-     * Change the zoom level
-     */
-    public void zoomTo(float zoom) {
-        this.zoom = zoom;
-    }
-
-    /**
-     * Change the zoom level, relatively to a pivot point.
-     * It will call moveTo() to make sure the given point stays
-     * in the middle of the screen.
-     *
-     * @param zoom  The zoom level.
-     * @param pivot The point on the screen that should stays.
-     */
-    public void zoomCenteredTo(float zoom, PointF pivot) {
-        float dzoom = zoom / this.zoom;
-        zoomTo(zoom);
-        float baseX = currentXOffset * dzoom;
-        float baseY = currentYOffset * dzoom;
-        baseX += (pivot.x - pivot.x * dzoom);
-        baseY += (pivot.y - pivot.y * dzoom);
-        moveTo(baseX, baseY);
-    }
-
-    /**
-     * @see #zoomCenteredTo(float, PointF)
-     */
-    public void zoomCenteredRelativeTo(float dzoom, PointF pivot) {
-        zoomCenteredTo(zoom * dzoom, pivot);
-    }
-
-    /**
-     * Checks if whole document can be displayed on screen, doesn't include zoom
-     *
-     * @return true if whole document can displayed at once, false otherwise
-     */
-    public boolean documentFitsView() {
-        float len = pdfFile.getDocLen(1);
-        if (swipeVertical) {
-            return len < getHeight();
-        } else {
-            return len < getWidth();
-        }
-    }
-
-    public void fitToWidth(int page) {
-        if (state != State.SHOWN) {
-            Log.e(TAG, "Cannot fit, document not rendered yet");
-            return;
-        }
-        zoomTo(getWidth() / pdfFile.getPageSize(page).getWidth());
-        jumpTo(page);
-    }
-
-    public SizeF getPageSize(int pageIndex) {
-        if (pdfFile == null) {
-            return new SizeF(0, 0);
-        }
-        return pdfFile.getPageSize(pageIndex);
-    }
-
-    public int getCurrentPage() {
-        return currentPage;
-    }
-
-    public float getCurrentXOffset() {
-        return currentXOffset;
-    }
-
-    public float getCurrentYOffset() {
-        return currentYOffset;
-    }
-
-    public float toRealScale(float size) {
-        return size / zoom;
-    }
-
-    public float toCurrentScale(float size) {
-        return size * zoom;
-    }
-
-    /**
-     * Get document size taking into account current scale (zoom).
-     * Width is the page with maximum width and height is total height of all pages.
-     * @return document size
-     */
-    public SizeF getDocumentSize() {
-        return  getDocumentSize(getZoom());
-    }
-
-    /**
-     * Get document size taking into account specific scale (zoom).
-     * Width - is largest page width; height - is total height of all pages in the document.
-     * @param zoom scale value
-     * @return document size
-     */
-    public SizeF getDocumentSize(float zoom) {
-        if (pdfFile == null) {
-            return null;
-        }
-
-        float documentWidth = pdfFile.getMaxPageSize().getWidth() * zoom;
-        float documentHeight = pdfFile.getDocLen(zoom);
-        SizeF documentSize = new SizeF(documentWidth, documentHeight);
-        return documentSize;
-    }
-
-    /**
-     * Get specific page offset taking into account current scale (zoom) and scroll direction
-     * @param pageIndex page index
-     * @return page offset
-     */
-    public PointF getPageOffset(int pageIndex) {
-        return getPageOffset(pageIndex, getZoom());
-    }
-
-    /**
-     * Get specific page offset taking into account specific scale (zoom) and scroll direction
-     * @param pageIndex page index
-     * @param zoom scale value
-     * @return page offset
-     */
-    public PointF getPageOffset(int pageIndex, float zoom) {
-        if (pdfFile == null) {
-            return null;
-        }
-
-        float pageX, pageY;
-
-        if (isSwipeVertical()) {
-            pageX = pdfFile.getSecondaryPageOffset(pageIndex, zoom);
-            pageY = pdfFile.getPageOffset(pageIndex, zoom);
-        } else {
-            pageY = pdfFile.getSecondaryPageOffset(pageIndex, zoom);
-            pageX = pdfFile.getPageOffset(pageIndex, zoom);
-        }
-
-        return  new PointF(pageX, pageY);
-    }
-
-    public float getZoom() {
-        return zoom;
-    }
-
-    public boolean isZooming() {
-        return zoom != minZoom;
-    }
-
-    private void setDefaultPage(int defaultPage) {
-        this.defaultPage = defaultPage;
-    }
-
-    public void resetZoom() {
-        zoomTo(minZoom);
-    }
-
-    public void resetZoomWithAnimation() {
-        zoomWithAnimation(minZoom);
-    }
-
-    public void zoomWithAnimation(float centerX, float centerY, float scale) {
-        animationManager.startZoomAnimation(centerX, centerY, zoom, scale);
-    }
-
-    public void zoomWithAnimation(float scale) {
-        animationManager.startZoomAnimation(getWidth() / 2, getHeight() / 2, zoom, scale);
-    }
-
-    private void setScrollHandle(ScrollHandle scrollHandle) {
-        this.scrollHandle = scrollHandle;
-    }
-
-    /**
-     * Get page number at given offset
-     *
-     * @param positionOffset scroll offset between 0 and 1
-     * @return page number at given offset, starting from 0
-     */
-    public int getPageAtPositionOffset(float positionOffset) {
-        return pdfFile.getPageAtOffset(pdfFile.getDocLen(zoom) * positionOffset, zoom);
-    }
-
-    public float getMinZoom() {
-        return minZoom;
-    }
-
-    public void setMinZoom(float minZoom) {
-        this.minZoom = minZoom;
-    }
-
-    public float getMidZoom() {
-        return midZoom;
-    }
-
-    public void setMidZoom(float midZoom) {
-        this.midZoom = midZoom;
-    }
-
-    public float getMaxZoom() {
-        return maxZoom;
-    }
-
-    public void setMaxZoom(float maxZoom) {
-        this.maxZoom = maxZoom;
-    }
-
-    public void useBestQuality(boolean bestQuality) {
-        this.bestQuality = bestQuality;
-    }
-
-    public boolean isBestQuality() {
-        return bestQuality;
-    }
-
-    public boolean isSwipeVertical() {
-        return swipeVertical;
-    }
-
-    public boolean isSwipeEnabled() {
-        return enableSwipe;
-    }
-
-    private void setSwipeVertical(boolean swipeVertical) {
-        this.swipeVertical = swipeVertical;
-    }
-
-    public void enableAnnotationRendering(boolean annotationRendering) {
-        this.annotationRendering = annotationRendering;
-    }
-
-    public boolean isAnnotationRendering() {
-        return annotationRendering;
-    }
-
-    public void enableRenderDuringScale(boolean renderDuringScale) {
-        this.renderDuringScale = renderDuringScale;
-    }
-
-    public boolean isAntialiasing() {
-        return enableAntialiasing;
-    }
-
-    public void enableAntialiasing(boolean enableAntialiasing) {
-        this.enableAntialiasing = enableAntialiasing;
-    }
-
-    public int getSpacingPx() {
-        return spacingPx;
-    }
-
-    public boolean isAutoSpacingEnabled() {
-        return autoSpacing;
-    }
-
-    public void setPageFling(boolean pageFling) {
-        this.pageFling = pageFling;
-    }
-
-    public boolean isPageFlingEnabled() {
-        return pageFling;
-    }
-
-    private void setSpacing(int spacingDp) {
-        this.spacingPx = Util.getDP(getContext(), spacingDp);
-    }
-
-    private void setAutoSpacing(boolean autoSpacing) {
-        this.autoSpacing = autoSpacing;
-    }
-
-    private void setPageFitPolicy(FitPolicy pageFitPolicy) {
-        this.pageFitPolicy = pageFitPolicy;
-    }
-
-    public FitPolicy getPageFitPolicy() {
-        return pageFitPolicy;
-    }
-
-    /**
-     * Gets currently set page size calculator handler
-     *
-     * @return
-     */
-    public PageSizeCalculatorHandler getPageSizeCalculatorHandler() {
-        return  pageSizeCalculatorHandler;
-    }
-
-    /**
-     * Sets page size calculator which is used to optimal page sizes to fit into view
-     *
-     * @param calculatorHandler
-     */
-    public void setPageSizeCalculatorHandler(PageSizeCalculatorHandler calculatorHandler) {
-        pageSizeCalculatorHandler = calculatorHandler;
-    }
-
-    private void setFitEachPage(boolean fitEachPage) {
-        this.fitEachPage = fitEachPage;
-    }
-
-    public boolean isFitEachPage() {
-        return fitEachPage;
-    }
-
-    public boolean isPageSnap() {
-        return pageSnap;
-    }
-
-    public void setPageSnap(boolean pageSnap) {
-        this.pageSnap = pageSnap;
-    }
-
-    public boolean doRenderDuringScale() {
-        return renderDuringScale;
-    }
-
-    /** Returns null if document is not loaded */
-    public PdfDocument.Meta getDocumentMeta() {
-        if (pdfFile == null) {
-            return null;
-        }
-        return pdfFile.getMetaData();
-    }
-
-    /** Will be empty until document is loaded */
-    public List<PdfDocument.Bookmark> getTableOfContents() {
-        if (pdfFile == null) {
-            return Collections.emptyList();
-        }
-        return pdfFile.getBookmarks();
-    }
-
-    /** Will be empty until document is loaded */
-    public List<PdfDocument.Link> getLinks(int page) {
-        if (pdfFile == null) {
-            return Collections.emptyList();
-        }
-        return pdfFile.getPageLinks(page);
-    }
-
-    /** Use an asset file as the pdf source */
-    public Configurator fromAsset(String assetName) {
-        return new Configurator(new AssetSource(assetName));
-    }
-
-    /** Use a file as the pdf source */
-    public Configurator fromFile(File file) {
-        return new Configurator(new FileSource(file));
-    }
-
-    /** Use URI as the pdf source, for use with content providers */
-    public Configurator fromUri(Uri uri) {
-        return new Configurator(new UriSource(uri));
-    }
-
-    /** Use bytearray as the pdf source, documents is not saved */
-    public Configurator fromBytes(byte[] bytes) {
-        return new Configurator(new ByteArraySource(bytes));
-    }
-
-    /** Use stream as the pdf source. Stream will be written to bytearray, because native code does not support Java Streams */
-    public Configurator fromStream(InputStream stream) {
-        return new Configurator(new InputStreamSource(stream));
-    }
-
-    /** Use custom source as pdf source */
-    public Configurator fromSource(DocumentSource docSource) {
-        return new Configurator(docSource);
-    }
-
-    private enum State {DEFAULT, LOADED, SHOWN, ERROR}
-
-    public class Configurator {
-
-        private final DocumentSource documentSource;
-
-        private int[] pageNumbers = null;
-
-        private boolean enableSwipe = true;
-
-        private boolean enableDoubletap = true;
-
-        private OnDrawListener onDrawListener;
-
-        private OnDrawListener onDrawAllListener;
-
-        private OnLoadCompleteListener onLoadCompleteListener;
-
-        private OnErrorListener onErrorListener;
-
-        private OnPageChangeListener onPageChangeListener;
-
-        private OnPageScrollListener onPageScrollListener;
-
-        private OnRenderListener onRenderListener;
-
-        private OnTapListener onTapListener;
-
-        private OnLongPressListener onLongPressListener;
-
-        private OnPageErrorListener onPageErrorListener;
-
-        private LinkHandler linkHandler = new DefaultLinkHandler(PDFView.this);
-
-        /** Page size calculator used to calculate optimal page sizes to fit into view */
-        private PageSizeCalculatorHandler pageSizeCalculatorHandler = new DefaultPageSizeCalculatorHandler();
-
-        private int defaultPage = 0;
-
-        private boolean swipeHorizontal = false;
-
-        private boolean annotationRendering = false;
-
-        private String password = null;
-
-        private ScrollHandle scrollHandle = null;
-
-        private boolean antialiasing = true;
-
-        private int spacing = 0;
-
-        private boolean autoSpacing = false;
-
-        private FitPolicy pageFitPolicy = FitPolicy.WIDTH;
-
-        private boolean fitEachPage = false;
-
-        private boolean pageFling = false;
-
-        private boolean pageSnap = false;
-
-        private boolean nightMode = false;
-
-        private Configurator(DocumentSource documentSource) {
-            this.documentSource = documentSource;
-        }
-
-        public Configurator pages(int... pageNumbers) {
-            this.pageNumbers = pageNumbers;
-            return this;
-        }
-
-        public Configurator enableSwipe(boolean enableSwipe) {
-            this.enableSwipe = enableSwipe;
-            return this;
-        }
-
-        public Configurator enableDoubletap(boolean enableDoubletap) {
-            this.enableDoubletap = enableDoubletap;
-            return this;
-        }
-
-        public Configurator enableAnnotationRendering(boolean annotationRendering) {
-            this.annotationRendering = annotationRendering;
-            return this;
-        }
-
-        public Configurator onDraw(OnDrawListener onDrawListener) {
-            this.onDrawListener = onDrawListener;
-            return this;
-        }
-
-        public Configurator onDrawAll(OnDrawListener onDrawAllListener) {
-            this.onDrawAllListener = onDrawAllListener;
-            return this;
-        }
-
-        public Configurator onLoad(OnLoadCompleteListener onLoadCompleteListener) {
-            this.onLoadCompleteListener = onLoadCompleteListener;
-            return this;
-        }
-
-        public Configurator onPageScroll(OnPageScrollListener onPageScrollListener) {
-            this.onPageScrollListener = onPageScrollListener;
-            return this;
-        }
-
-        public Configurator onError(OnErrorListener onErrorListener) {
-            this.onErrorListener = onErrorListener;
-            return this;
-        }
-
-        public Configurator onPageError(OnPageErrorListener onPageErrorListener) {
-            this.onPageErrorListener = onPageErrorListener;
-            return this;
-        }
-
-        public Configurator onPageChange(OnPageChangeListener onPageChangeListener) {
-            this.onPageChangeListener = onPageChangeListener;
-            return this;
-        }
-
-        public Configurator onRender(OnRenderListener onRenderListener) {
-            this.onRenderListener = onRenderListener;
-            return this;
-        }
-
-        public Configurator onTap(OnTapListener onTapListener) {
-            this.onTapListener = onTapListener;
-            return this;
-        }
-
-        public Configurator onLongPress(OnLongPressListener onLongPressListener) {
-            this.onLongPressListener = onLongPressListener;
-            return this;
-        }
-
-        public Configurator linkHandler(LinkHandler linkHandler) {
-            this.linkHandler = linkHandler;
-            return this;
-        }
-
-        /**
-         * Sets custom page size calculator
-         *
-         * @param pageSizeCalculatorHandler custom page size calculator
-         * @return
-         */
-        public Configurator pageSizeCalculatorHandler(PageSizeCalculatorHandler pageSizeCalculatorHandler)
-        {
-            this.pageSizeCalculatorHandler = pageSizeCalculatorHandler;
-            return  this;
-        }
-
-        public Configurator defaultPage(int defaultPage) {
-            this.defaultPage = defaultPage;
-            return this;
-        }
-
-        public Configurator swipeHorizontal(boolean swipeHorizontal) {
-            this.swipeHorizontal = swipeHorizontal;
-            return this;
-        }
-
-        public Configurator password(String password) {
-            this.password = password;
-            return this;
-        }
-
-        public Configurator scrollHandle(ScrollHandle scrollHandle) {
-            this.scrollHandle = scrollHandle;
-            return this;
-        }
-
-        public Configurator enableAntialiasing(boolean antialiasing) {
-            this.antialiasing = antialiasing;
-            return this;
-        }
-
-        public Configurator spacing(int spacing) {
-            this.spacing = spacing;
-            return this;
-        }
-
-        public Configurator autoSpacing(boolean autoSpacing) {
-            this.autoSpacing = autoSpacing;
-            return this;
-        }
-
-        public Configurator pageFitPolicy(FitPolicy pageFitPolicy) {
-            this.pageFitPolicy = pageFitPolicy;
-            return this;
-        }
-
-        public Configurator fitEachPage(boolean fitEachPage) {
-            this.fitEachPage = fitEachPage;
-            return this;
-        }
-
-        public Configurator pageSnap(boolean pageSnap) {
-            this.pageSnap = pageSnap;
-            return this;
-        }
-
-        public Configurator pageFling(boolean pageFling) {
-            this.pageFling = pageFling;
-            return this;
-        }
-
-        public Configurator nightMode(boolean nightMode) {
-            this.nightMode = nightMode;
-            return this;
-        }
-
-        public Configurator disableLongpress() {
-            PDFView.this.dragPinchManager.disableLongpress();
-            return this;
-        }
-
-        public void load() {
-            if (!hasSize) {
-                waitingDocumentConfigurator = this;
-                return;
-            }
-            PDFView.this.recycle();
-            PDFView.this.callbacks.setOnLoadComplete(onLoadCompleteListener);
-            PDFView.this.callbacks.setOnError(onErrorListener);
-            PDFView.this.callbacks.setOnDraw(onDrawListener);
-            PDFView.this.callbacks.setOnDrawAll(onDrawAllListener);
-            PDFView.this.callbacks.setOnPageChange(onPageChangeListener);
-            PDFView.this.callbacks.setOnPageScroll(onPageScrollListener);
-            PDFView.this.callbacks.setOnRender(onRenderListener);
-            PDFView.this.callbacks.setOnTap(onTapListener);
-            PDFView.this.callbacks.setOnLongPress(onLongPressListener);
-            PDFView.this.callbacks.setOnPageError(onPageErrorListener);
-            PDFView.this.callbacks.setLinkHandler(linkHandler);
-            PDFView.this.setSwipeEnabled(enableSwipe);
-            PDFView.this.setNightMode(nightMode);
-            PDFView.this.enableDoubletap(enableDoubletap);
-            PDFView.this.setDefaultPage(defaultPage);
-            PDFView.this.setSwipeVertical(!swipeHorizontal);
-            PDFView.this.enableAnnotationRendering(annotationRendering);
-            PDFView.this.setScrollHandle(scrollHandle);
-            PDFView.this.enableAntialiasing(antialiasing);
-            PDFView.this.setSpacing(spacing);
-            PDFView.this.setAutoSpacing(autoSpacing);
-            PDFView.this.setPageFitPolicy(pageFitPolicy);
-            PDFView.this.setFitEachPage(fitEachPage);
-            PDFView.this.setPageSnap(pageSnap);
-            PDFView.this.setPageFling(pageFling);
-            PDFView.this.setPageSizeCalculatorHandler(pageSizeCalculatorHandler);
-
-            if (pageNumbers != null) {
-                PDFView.this.load(documentSource, password, pageNumbers);
-            } else {
-                PDFView.this.load(documentSource, password);
-            }
-        }
-    }
-}
+/**
+ * Copyright 2016 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorMatrix;
+import android.graphics.ColorMatrixColorFilter;
+import android.graphics.Paint;
+import android.graphics.Paint.Style;
+import android.graphics.PaintFlagsDrawFilter;
+import android.graphics.PointF;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.graphics.Region;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+import android.widget.RelativeLayout;
+
+import com.github.barteksc.pdfviewer.CacheManager.DrawingSnapshot;
+import com.github.barteksc.pdfviewer.CacheManager.Node;
+import com.github.barteksc.pdfviewer.backend.PdfiumRenderBackend;
+import com.github.barteksc.pdfviewer.backend.RenderBackend;
+import com.github.barteksc.pdfviewer.calculator.DefaultPageSizeCalculatorHandler;
+import com.github.barteksc.pdfviewer.calculator.PageSizeCalculatorHandler;
+import com.github.barteksc.pdfviewer.exception.PageRenderingException;
+import com.github.barteksc.pdfviewer.link.DefaultLinkHandler;
+import com.github.barteksc.pdfviewer.link.LinkHandler;
+import com.github.barteksc.pdfviewer.listener.Callbacks;
+import com.github.barteksc.pdfviewer.listener.OnDrawListener;
+import com.github.barteksc.pdfviewer.listener.OnErrorListener;
+import com.github.barteksc.pdfviewer.listener.OnLoadCompleteListener;
+import com.github.barteksc.pdfviewer.listener.OnLoadStageListener;
+import com.github.barteksc.pdfviewer.listener.OnLongPressListener;
+import com.github.barteksc.pdfviewer.listener.OnPageChangeListener;
+import com.github.barteksc.pdfviewer.listener.OnPageErrorListener;
+import com.github.barteksc.pdfviewer.listener.OnPageScrollListener;
+import com.github.barteksc.pdfviewer.listener.OnRenderListener;
+import com.github.barteksc.pdfviewer.listener.OnTapListener;
+import com.github.barteksc.pdfviewer.model.PagePart;
+import com.github.barteksc.pdfviewer.scroll.ScrollHandle;
+import com.github.barteksc.pdfviewer.source.AssetSource;
+import com.github.barteksc.pdfviewer.source.ByteArraySource;
+import com.github.barteksc.pdfviewer.source.DocumentSource;
+import com.github.barteksc.pdfviewer.source.FileSource;
+import com.github.barteksc.pdfviewer.source.InputStreamSource;
+import com.github.barteksc.pdfviewer.source.UriSource;
+import com.github.barteksc.pdfviewer.util.Constants;
+import com.github.barteksc.pdfviewer.util.FitPolicy;
+import com.github.barteksc.pdfviewer.util.LoadStage;
+import com.github.barteksc.pdfviewer.util.MathUtils;
+import com.github.barteksc.pdfviewer.util.SnapEdge;
+import com.github.barteksc.pdfviewer.util.TilePyramid;
+import com.github.barteksc.pdfviewer.util.Util;
+import com.shockwave.pdfium.PdfDocument;
+import com.shockwave.pdfium.util.Size;
+import com.shockwave.pdfium.util.SizeF;
+
+import java.io.File;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * It supports animations, zoom, cache, and swipe.
+ * <p>
+ * To fully understand this class you must know its principles :
+ * - The PDF document is seen as if we always want to draw all the pages.
+ * - The thing is that we only draw the visible parts.
+ * - All parts are the same size, this is because we can't interrupt a native page rendering,
+ * so we need these renderings to be as fast as possible, and be able to interrupt them
+ * as soon as we can.
+ * - The parts are loaded when the current offset or the current zoom level changes
+ * <p>
+ * Important :
+ * - DocumentPage = A page of the PDF document.
+ * - UserPage = A page as defined by the user.
+ * By default, they're the same. But the user can change the pages order
+ * using {@link #load(DocumentSource, String, int[])}. In this
+ * particular case, a userPage of 5 can refer to a documentPage of 17.
+ */
+public class PDFView extends RelativeLayout {
+
+    private static final String TAG = PDFView.class.getSimpleName();
+
+    /** Distance in pixels of the viewport from the draw origin, after which the origin is moved to the viewport */
+    private static final float DRAW_ORIGIN_MAX_DISTANCE = 1 << 15;
+
+    public static final float DEFAULT_MAX_SCALE = 3.0f;
+    public static final float DEFAULT_MID_SCALE = 1.75f;
+    public static final float DEFAULT_MIN_SCALE = 1.0f;
+
+    private float minZoom = DEFAULT_MIN_SCALE;
+    private float midZoom = DEFAULT_MID_SCALE;
+    private float maxZoom = DEFAULT_MAX_SCALE;
+
+    /**
+     * START - scrolling in first page direction
+     * END - scrolling in last page direction
+     * NONE - not scrolling
+     */
+    enum ScrollDir {
+        NONE, START, END
+    }
+
+    private ScrollDir scrollDir = ScrollDir.NONE;
+
+    /** Rendered parts go to the cache manager */
+    CacheManager cacheManager;
+
+    /** Bitmaps of parts evicted from the cache are kept for reuse */
+    BitmapPool bitmapPool;
+
+    /** Optional second level cache of rendered parts, set by {@link Configurator#diskCache(String, long)} */
+    volatile DiskTileCache diskTileCache;
+
+    /** Animation manager manage all offset and zoom animation */
+    private AnimationManager animationManager;
+
+    /** Drag manager manage all touch events */
+    private DragPinchManager dragPinchManager;
+
+    PdfFile pdfFile;
+
+    /** The index of the current sequence */
+    private int currentPage;
+
+    /**
+     * If you picture all the pages side by side in their optimal width,
+     * and taking into account the zoom level, the current offset is the
+     * position of the left border of the screen in this big picture.
+     * Kept in double precision, like offsets of pages, so long documents scroll precisely to the end.
+     */
+    private double currentXOffset = 0;
+
+    /**
+     * If you picture all the pages side by side in their optimal width,
+     * and taking into account the zoom level, the current offset is the
+     * position of the left border of the screen in this big picture
+     */
+    private double currentYOffset = 0;
+
+    /** The zoom level, always >= 1 */
+    private float zoom = 1f;
+
+    /** True if the PDFView has been recycled */
+    private boolean recycled = true;
+
+    /** Current state of the view */
+    private State state = State.DEFAULT;
+
+    /** Async task used during the loading phase to decode a PDF document */
+    private DecodingAsyncTask decodingAsyncTask;
+
+    /** Handler always waiting in the background and rendering tasks */
+    RenderingHandler renderingHandler;
+
+    private PagesLoader pagesLoader;
+
+    /** Reads real page sizes in the background if the document was opened with estimated layout */
+    private PageLayoutResolver pageLayoutResolver;
+
+    /** True if {@link #pageLayoutResolver} read page sizes, which are applied when the view is not in motion */
+    private boolean pageSizesRead = false;
+
+    /** Time when loading of the document started, for {@link Callbacks#callOnLoadStage(LoadStage, long)} */
+    private long loadStartMillis;
+
+    Callbacks callbacks = new Callbacks();
+
+    /** Paint object for drawing */
+    private Paint paint;
+
+    /** Paint object for drawing debug stuff */
+    private Paint debugPaint;
+
+    /** Policy for fitting pages to screen */
+    private FitPolicy pageFitPolicy = FitPolicy.WIDTH;
+
+    private PageSizeCalculatorHandler pageSizeCalculatorHandler;
+
+    private boolean fitEachPage = false;
+
+    /**
+     * True if the document should be shown right after sizes of a few first pages are read,
+     * with sizes of other pages estimated and corrected in the background
+     */
+    private boolean lazyLayout = false;
+
+    private int defaultPage = 0;
+
+    /** True if should scroll through pages vertically instead of horizontally */
+    private boolean swipeVertical = true;
+
+    private boolean enableSwipe = true;
+
+    private boolean doubletapEnabled = true;
+
+    private boolean nightMode = false;
+
+    private boolean pageSnap = true;
+
+    /** Backend for loading and rendering PDFs, pdfium by default */
+    private RenderBackend renderBackend;
+
+    /** Number of threads rendering in parallel, each with its own instance of the document */
+    private int renderThreads = 1;
+
+    private ScrollHandle scrollHandle;
+
+    private boolean isScrollHandleInit = false;
+
+    ScrollHandle getScrollHandle() {
+        return scrollHandle;
+    }
+
+    /**
+     * True if bitmap should use ARGB_8888 format and take more memory
+     * False if bitmap should be compressed by using RGB_565 format and take less memory
+     */
+    private boolean bestQuality = false;
+
+    /**
+     * True if annotations should be rendered
+     * False otherwise
+     */
+    private boolean annotationRendering = false;
+
+    /**
+     * True if low resolution drafts of visible regions should be rendered
+     * before parts in full resolution
+     */
+    private boolean progressiveRendering = false;
+
+    /**
+     * True if parts requested during fling or pinch should be rendered in reduced quality,
+     * and rendered again in full quality when the view settles
+     */
+    private boolean motionQualityRendering = false;
+
+    /**
+     * True if the view should render during scaling<br/>
+     * Can not be forced on older API versions (< Build.VERSION_CODES.KITKAT) as the GestureDetector does
+     * not detect scrolling while scaling.<br/>
+     * False otherwise
+     */
+    private boolean renderDuringScale = false;
+
+    /**
+     * True if parts cached when scaling starts should be drawn under a scale transformation during scaling,
+     * without any change until scaling ends, and parts at the new zoom requested only when scaling ends,
+     * or after {@link #scaleSnapshotRenderDelay}
+     */
+    private boolean scaleSnapshot = false;
+
+    /**
+     * Delay after the last scale change, after which parts at the intermediate zoom are requested
+     * and the snapshot shows them, until the scale changes again, 0 to disable
+     */
+    private int scaleSnapshotRenderDelay = 0;
+
+    private boolean scaleSnapshotActive = false;
+
+    /** Zoom at which parts are positioned while scaling */
+    private float scaleSnapshotZoom;
+
+    private final Runnable scaleSnapshotRender = new Runnable() {
+        @Override
+        public void run() {
+            if (scaleSnapshotActive) {
+                cacheManager.unfreezeDrawingSnapshot();
+                loadPages();
+            }
+        }
+    };
+
+    /** Antialiasing and bitmap filtering */
+    private boolean enableAntialiasing = true;
+    private PaintFlagsDrawFilter antialiasFilter =
+            new PaintFlagsDrawFilter(0, Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+
+    /** Spacing between pages, in px */
+    private int spacingPx = 0;
+
+    /** Add dynamic spacing to fit each page separately on the screen. */
+    private boolean autoSpacing = false;
+
+    /** Fling a single page at a time */
+    private boolean pageFling = true;
+
+    /** Pages numbers used when calling onDrawAllListener */
+    private SparseBooleanArray onDrawPagesNums = new SparseBooleanArray(10);
+
+    /** Changed with zoom or layout of pages, invalidates destinations of parts cached for drawing */
+    private int drawLayoutStamp = 0;
+
+    /** Zoom for which {@link #drawLayoutStamp} was issued */
+    private float drawLayoutZoom = -1;
+
+    /**
+     * Point near the viewport in document coordinates at the draw zoom, destinations of parts are relative to it,
+     * so they are precise as float also far from the start of long documents
+     */
+    private double drawOriginX, drawOriginY;
+
+    /** Pages visible in the current frame */
+    private int firstVisiblePage, visiblePagesCount;
+
+    /** Visible regions of visible pages in document coordinates */
+    private RectF[] visiblePageRects = new RectF[0];
+
+    /** Visible region of the page is not covered by parts of the current level */
+    private static final int COVERAGE_NONE = 0;
+
+    /** Parts of the current level cover a part of the visible region of the page */
+    private static final int COVERAGE_PARTIAL = 1;
+
+    /** Parts of the current level cover the whole visible region of the page */
+    private static final int COVERAGE_FULL = 2;
+
+    /** Coverage of visible regions of pages by parts of the current level, one of COVERAGE_* constants */
+    private int[] visiblePageCoverage = new int[0];
+
+    /** Uncovered region of a page, used to find out its coverage */
+    private final Region uncoveredRegion = new Region();
+
+    private final Rect coverageRect = new Rect();
+
+    private final RectF fullPageBounds = new RectF(0, 0, 1, 1);
+
+    private final RectF clipRect = new RectF();
+
+    /** Destination of a thumbnail, draft or rendered part, which is not cached */
+    private final RectF partBounds = new RectF();
+
+    /** Parts evicted by the last rendered part, reused */
+    private final List<PagePart> evictedParts = new ArrayList<>();
+
+    /** Holds info whether view has been added to layout and has width and height */
+    private boolean hasSize = false;
+
+    /** Holds last used Configurator that should be loaded when view has size */
+    private Configurator waitingDocumentConfigurator;
+
+    /** Construct the initial view */
+    public PDFView(Context context, AttributeSet set) {
+        super(context, set);
+
+        if (isInEditMode()) {
+            return;
+        }
+
+        bitmapPool = new BitmapPool(BitmapPool.getDefaultMaxBytes(context));
+        cacheManager = new CacheManager(bitmapPool, CacheManager.getDefaultMaxBytes(context));
+        animationManager = new AnimationManager(this);
+        dragPinchManager = new DragPinchManager(this, animationManager);
+        pagesLoader = new PagesLoader(this);
+
+        paint = new Paint();
+        debugPaint = new Paint();
+        debugPaint.setStyle(Style.STROKE);
+
+        setWillNotDraw(false);
+    }
+
+    private void load(DocumentSource docSource, String password) {
+        load(docSource, password, null);
+    }
+
+    private void load(DocumentSource docSource, String password, int[] userPages) {
+
+        if (!recycled) {
+            throw new IllegalStateException("Don't call load on a PDF View without recycling it first.");
+        }
+
+        recycled = false;
+        bitmapPool.open();
+        if (renderBackend == null) {
+            renderBackend = new PdfiumRenderBackend(getContext());
+        }
+        loadStartMillis = SystemClock.uptimeMillis();
+        // Start decoding document
+        decodingAsyncTask = new DecodingAsyncTask(docSource, password, userPages, this, renderBackend);
+        decodingAsyncTask.executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
+    }
+
+    /**
+     * Go to the given page.
+     *
+     * @param page Page index.
+     */
+    public void jumpTo(int page, boolean withAnimation) {
+        if (pdfFile == null) {
+            return;
+        }
+
+        page = pdfFile.determineValidPageNumberFrom(page);
+        double offset = page == 0 ? 0 : -pdfFile.getPageOffset(page, zoom);
+        if (swipeVertical) {
+            if (withAnimation) {
+                animationManager.startYAnimation(currentYOffset, offset);
+            } else {
+                moveTo(currentXOffset, offset);
+            }
+        } else {
+            if (withAnimation) {
+                animationManager.startXAnimation(currentXOffset, offset);
+            } else {
+                moveTo(offset, currentYOffset);
+            }
+        }
+        showPage(page);
+    }
+
+    public void jumpTo(int page) {
+        jumpTo(page, false);
+    }
+
+    void showPage(int pageNb) {
+        if (recycled) {
+            return;
+        }
+
+        // Check the page number and makes the
+        // difference between UserPages and DocumentPages
+        pageNb = pdfFile.determineValidPageNumberFrom(pageNb);
+        currentPage = pageNb;
+
+        loadPages();
+
+        if (scrollHandle != null && !documentFitsView()) {
+            scrollHandle.setPageNum(currentPage + 1);
+        }
+
+        callbacks.callOnPageChange(currentPage, pdfFile.getPagesCount());
+    }
+
+    /**
+     * Get current position as ratio of document length to visible area.
+     * 0 means that document start is visible, 1 that document end is visible
+     *
+     * @return offset between 0 and 1
+     */
+    public float getPositionOffset() {
+        double offset;
+        if (swipeVertical) {
+            offset = -currentYOffset / (pdfFile.getDocLen(zoom) - getHeight());
+        } else {
+            offset = -currentXOffset / (pdfFile.getDocLen(zoom) - getWidth());
+        }
+        return MathUtils.limit((float) offset, 0, 1);
+    }
+
+    /**
+     * @param progress   must be between 0 and 1
+     * @param moveHandle whether to move scroll handle
+     * @see PDFView#getPositionOffset()
+     */
+    public void setPositionOffset(float progress, boolean moveHandle) {
+        if (swipeVertical) {
+            moveTo(currentXOffset, (-pdfFile.getDocLen(zoom) + getHeight()) * progress, moveHandle);
+        } else {
+            moveTo((-pdfFile.getDocLen(zoom) + getWidth()) * progress, currentYOffset, moveHandle);
+        }
+        loadPageByOffset();
+    }
+
+    public void setPositionOffset(float progress) {
+        setPositionOffset(progress, true);
+    }
+
+    public void stopFling() {
+        animationManager.stopFling();
+    }
+
+    public int getPageCount() {
+        if (pdfFile == null) {
+            return 0;
+        }
+        return pdfFile.getPagesCount();
+    }
+
+    public void setSwipeEnabled(boolean enableSwipe) {
+        this.enableSwipe = enableSwipe;
+    }
+
+    public void setNightMode(boolean nightMode) {
+        this.nightMode = nightMode;
+        if (nightMode) {
+            ColorMatrix colorMatrixInverted =
+                    new ColorMatrix(new float[]{
+                            -1, 0, 0, 0, 255,
+                            0, -1, 0, 0, 255,
+                            0, 0, -1, 0, 255,
+                            0, 0, 0, 1, 0});
+
+            ColorMatrixColorFilter filter = new ColorMatrixColorFilter(colorMatrixInverted);
+            paint.setColorFilter(filter);
+        } else {
+            paint.setColorFilter(null);
+        }
+    }
+
+    void enableDoubletap(boolean enableDoubletap) {
+        this.doubletapEnabled = enableDoubletap;
+    }
+
+    boolean isDoubletapEnabled() {
+        return doubletapEnabled;
+    }
+
+    void onPageError(PageRenderingException ex) {
+        // rendering of the first screen could fail, read the layout anyway
+        startPageLayoutResolver();
+        if (!callbacks.callOnPageError(ex.getPage(), ex.getCause())) {
+            Log.e(TAG, "Cannot open page " + ex.getPage(), ex.getCause());
+        }
+    }
+
+    public void recycle() {
+        waitingDocumentConfigurator = null;
+
+        animationManager.stopAll();
+        dragPinchManager.disable();
+
+        // Stop tasks, the document is closed by the rendering threads
+        if (renderingHandler != null) {
+            renderingHandler.close();
+        }
+        if (pageLayoutResolver != null) {
+            pageLayoutResolver.stop();
+            pageLayoutResolver = null;
+        }
+        if (decodingAsyncTask != null) {
+            decodingAsyncTask.cancel(true);
+        }
+
+        // Clear caches
+        cacheManager.recycle();
+        bitmapPool.clear();
+        setDiskCache(null, 0);
+
+        if (scrollHandle != null && isScrollHandleInit) {
+            scrollHandle.destroyLayout();
+        }
+
+        if (pdfFile != null) {
+            pdfFile.dispose();
+            pdfFile = null;
+        }
+
+        renderingHandler = null;
+        scrollHandle = null;
+        isScrollHandleInit = false;
+        currentXOffset = currentYOffset = 0;
+        zoom = 1f;
+        recycled = true;
+        callbacks = new Callbacks();
+        state = State.DEFAULT;
+    }
+
+    public boolean isRecycled() {
+        return recycled;
+    }
+
+    /** Handle fling animation */
+    @Override
+    public void computeScroll() {
+        super.computeScroll();
+        if (isInEditMode()) {
+            return;
+        }
+        animationManager.computeFling();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        recycle();
+        super.onDetachedFromWindow();
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        hasSize = true;
+        if (waitingDocumentConfigurator != null) {
+            waitingDocumentConfigurator.load();
+        }
+        if (isInEditMode() || state != State.SHOWN) {
+            return;
+        }
+
+        // calculates the position of the point which in the center of view relative to big strip
+        double centerPointInStripXOffset = -currentXOffset + oldw * 0.5f;
+        double centerPointInStripYOffset = -currentYOffset + oldh * 0.5f;
+
+        double relativeCenterPointInStripXOffset;
+        double relativeCenterPointInStripYOffset;
+
+        if (swipeVertical){
+            relativeCenterPointInStripXOffset = centerPointInStripXOffset / pdfFile.getMaxPageWidth();
+            relativeCenterPointInStripYOffset = centerPointInStripYOffset / pdfFile.getDocLen(zoom);
+        }else {
+            relativeCenterPointInStripXOffset = centerPointInStripXOffset / pdfFile.getDocLen(zoom);
+            relativeCenterPointInStripYOffset = centerPointInStripYOffset / pdfFile.getMaxPageHeight();
+        }
+
+        animationManager.stopAll();
+        pdfFile.recalculatePageSizes(new Size(w, h));
+        drawLayoutStamp++;
+
+        if (swipeVertical) {
+            currentXOffset = -relativeCenterPointInStripXOffset * pdfFile.getMaxPageWidth() + w * 0.5f;
+            currentYOffset = -relativeCenterPointInStripYOffset * pdfFile.getDocLen(zoom) + h * 0.5f ;
+        }else {
+            currentXOffset = -relativeCenterPointInStripXOffset * pdfFile.getDocLen(zoom) + w * 0.5f;
+            currentYOffset = -relativeCenterPointInStripYOffset * pdfFile.getMaxPageHeight() + h * 0.5f;
+        }
+        moveTo(currentXOffset,currentYOffset);
+        loadPageByOffset();
+    }
+
+    @Override
+    public boolean canScrollHorizontally(int direction) {
+        if (pdfFile == null) {
+            return true;
+        }
+
+        if (swipeVertical) {
+            if (direction < 0 && currentXOffset < 0) {
+                return true;
+            } else if (direction > 0 && currentXOffset + toCurrentScale(pdfFile.getMaxPageWidth()) > getWidth()) {
+                return true;
+            }
+        } else {
+            if (direction < 0 && currentXOffset < 0) {
+                return true;
+            } else if (direction > 0 && currentXOffset + pdfFile.getDocLen(zoom) > getWidth()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public boolean canScrollVertically(int direction) {
+        if (pdfFile == null) {
+            return true;
+        }
+
+        if (swipeVertical) {
+            if (direction < 0 && currentYOffset < 0) {
+                return true;
+            } else if (direction > 0 && currentYOffset + pdfFile.getDocLen(zoom) > getHeight()) {
+                return true;
+            }
+        } else {
+            if (direction < 0 && currentYOffset < 0) {
+                return true;
+            } else if (direction > 0 && currentYOffset + toCurrentScale(pdfFile.getMaxPageHeight()) > getHeight()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (isInEditMode()) {
+            return;
+        }
+        // bitmaps evicted before the previous frame are not drawn anymore and can be reused
+        cacheManager.onFrameStarted();
+
+        // As I said in this class javadoc, we can think of this canvas as a huge
+        // strip on which we draw all the images. We actually only draw the rendered
+        // parts, of course, but we render them in the place they belong in this huge
+        // strip.
+
+        // That's where Canvas.translate(x, y) becomes very helpful.
+        // This is the situation :
+        //  _______________________________________________
+        // |   			 |					 			   |
+        // | the actual  |					The big strip  |
+        // |	canvas	 | 								   |
+        // |_____________|								   |
+        // |_______________________________________________|
+        //
+        // If the rendered part is on the bottom right corner of the strip
+        // we can draw it but we won't see it because the canvas is not big enough.
+
+        // But if we call translate(-X, -Y) on the canvas just before drawing the object :
+        //  _______________________________________________
+        // |   			  					  _____________|
+        // |   The big strip     			 |			   |
+        // |		    					 |	the actual |
+        // |								 |	canvas	   |
+        // |_________________________________|_____________|
+        //
+        // The object will be on the canvas.
+        // This technique is massively used in this method, and allows
+        // abstraction of the screen position when rendering the parts.
+
+        // Draws background
+
+        if (enableAntialiasing) {
+            canvas.setDrawFilter(antialiasFilter);
+        }
+
+        boolean drawPages = !recycled && state == State.SHOWN;
+        if (drawPages) {
+            prepareVisiblePages();
+        }
+
+        // Background is not drawn below pages which are fully painted
+        int backgroundSaveCount = canvas.save();
+        if (drawPages) {
+            clipOutOpaquePages(canvas);
+        }
+        Drawable bg = getBackground();
+        if (bg == null) {
+            canvas.drawColor(nightMode ? Color.BLACK : Color.WHITE);
+        } else {
+            bg.draw(canvas);
+        }
+        canvas.restoreToCount(backgroundSaveCount);
+
+        if (recycled) {
+            return;
+        }
+
+        if (state != State.SHOWN) {
+            return;
+        }
+
+        // Moves the canvas before drawing any element, parts are positioned relative to the draw origin
+        // at the zoom of the scale snapshot while scaling, and scaled to the current zoom
+        int partsSaveCount = canvas.save();
+        canvas.translate(getDrawTranslationX(), getDrawTranslationY());
+        float drawScale = zoom / drawLayoutZoom;
+        if (drawScale != 1) {
+            canvas.scale(drawScale, drawScale);
+        }
+
+        // Draws thumbnails, lists of thumbnails and drafts are changed only on the UI thread.
+        // They are drawn only where parts of the current level are missing.
+        List<PagePart> thumbnails = cacheManager.getThumbnails();
+        for (int i = 0; i < thumbnails.size(); i++) {
+            drawUncoveredPart(canvas, thumbnails.get(i));
+        }
+
+        // Draws drafts of progressive rendering
+        List<PagePart> drafts = cacheManager.getDrafts();
+        for (int i = 0; i < drafts.size(); i++) {
+            drawUncoveredPart(canvas, drafts.get(i));
+        }
+
+        // Draws parts, parts of other levels are drawn scaled below parts of the current level
+        OnDrawListener onDrawAll = callbacks.getOnDrawAll();
+        Node[] nodes = cacheManager.getDrawingSnapshot().nodes;
+        for (Node node : nodes) {
+            drawPart(canvas, node.part, getDrawBounds(node));
+            if (onDrawAll != null) {
+                onDrawPagesNums.put(node.part.getPage(), true);
+            }
+        }
+        canvas.restoreToCount(partsSaveCount);
+
+        for (int i = 0; i < onDrawPagesNums.size(); i++) {
+            drawWithListener(canvas, onDrawPagesNums.keyAt(i), onDrawAll);
+        }
+        onDrawPagesNums.clear();
+
+        drawWithListener(canvas, currentPage, callbacks.getOnDraw());
+    }
+
+    private void drawWithListener(Canvas canvas, int page, OnDrawListener listener) {
+        if (listener != null) {
+            float translateX, translateY;
+            if (swipeVertical) {
+                translateX = (float) currentXOffset;
+                translateY = (float) (currentYOffset + pdfFile.getPageOffset(page, zoom));
+            } else {
+                translateY = (float) currentYOffset;
+                translateX = (float) (currentXOffset + pdfFile.getPageOffset(page, zoom));
+            }
+
+            canvas.translate(translateX, translateY);
+            listener.onLayerDrawn(canvas,
+                    pdfFile.getPageWidth(page, zoom),
+                    pdfFile.getPageHeight(page, zoom),
+                    page);
+
+            canvas.translate(-translateX, -translateY);
+        }
+    }
+
+    /**
+     * Find pages visible on the screen, their visible regions
+     * and coverage of the regions by parts of the current level
+     */
+    private void prepareVisiblePages() {
+        updateDrawLayoutStamp();
+
+        double viewportStart = swipeVertical ? -currentYOffset : -currentXOffset;
+        double viewportEnd = viewportStart + (swipeVertical ? getHeight() : getWidth());
+        firstVisiblePage = pdfFile.getPageAtOffset(viewportStart, zoom);
+        visiblePagesCount = pdfFile.getPageAtOffset(viewportEnd, zoom) - firstVisiblePage + 1;
+        if (visiblePageRects.length < visiblePagesCount) {
+            RectF[] rects = new RectF[visiblePagesCount];
+            for (int i = 0; i < rects.length; i++) {
+                rects[i] = i < visiblePageRects.length ? visiblePageRects[i] : new RectF();
+            }
+            visiblePageRects = rects;
+            visiblePageCoverage = new int[visiblePagesCount];
+        }
+
+        // viewport in draw coordinates
+        float drawScale = zoom / drawLayoutZoom;
+        float viewportLeft = (float) (-currentXOffset / drawScale - drawOriginX);
+        float viewportTop = (float) (-currentYOffset / drawScale - drawOriginY);
+        float viewportRight = viewportLeft + getWidth() / drawScale;
+        float viewportBottom = viewportTop + getHeight() / drawScale;
+        DrawingSnapshot snapshot = cacheManager.getDrawingSnapshot();
+        for (int i = 0; i < visiblePagesCount; i++) {
+            RectF rect = visiblePageRects[i];
+            calculateDrawBounds(firstVisiblePage + i, fullPageBounds, rect);
+            if (!rect.intersect(viewportLeft, viewportTop, viewportRight, viewportBottom)) {
+                rect.setEmpty();
+            }
+            visiblePageCoverage[i] = getCoverage(snapshot, firstVisiblePage + i, rect);
+        }
+    }
+
+    /**
+     * Find out how covering parts of the page cover its visible region. Parts can overlap,
+     * when the layout changed, so their union is subtracted from the region instead of summing their areas.
+     */
+    private int getCoverage(DrawingSnapshot snapshot, int page, RectF visible) {
+        if (visible.isEmpty()) {
+            return COVERAGE_NONE;
+        }
+        // rounded so rounding never makes an uncovered pixel look covered
+        visible.roundOut(coverageRect);
+        uncoveredRegion.set(coverageRect);
+        boolean covering = false;
+        Node[] nodes = snapshot.coveringNodes;
+        for (int i = snapshot.firstCoveringNode(page); i < nodes.length && nodes[i].part.getPage() == page; i++) {
+            Node node = nodes[i];
+            RectF bounds = getDrawBounds(node);
+            if (node.part.getRenderedBitmap().isRecycled() || !RectF.intersects(bounds, visible)) {
+                continue;
+            }
+            covering = true;
+            coverageRect.set((int) Math.ceil(bounds.left), (int) Math.ceil(bounds.top),
+                    (int) Math.floor(bounds.right), (int) Math.floor(bounds.bottom));
+            if (!uncoveredRegion.op(coverageRect, Region.Op.DIFFERENCE)) {
+                return COVERAGE_FULL;
+            }
+        }
+        return covering ? COVERAGE_PARTIAL : COVERAGE_NONE;
+    }
+
+    /** True if visible region of the page is fully covered by parts of the current level */
+    private boolean isPageCovered(int page) {
+        int index = page - firstVisiblePage;
+        return index >= 0 && index < visiblePagesCount && visiblePageCoverage[index] == COVERAGE_FULL;
+    }
+
+    private boolean hasThumbnail(int page) {
+        List<PagePart> thumbnails = cacheManager.getThumbnails();
+        for (int i = 0; i < thumbnails.size(); i++) {
+            PagePart thumbnail = thumbnails.get(i);
+            if (thumbnail.getPage() == page && !thumbnail.getRenderedBitmap().isRecycled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Exclude visible regions of pages, which are painted by a thumbnail or parts, from the clip */
+    private void clipOutOpaquePages(Canvas canvas) {
+        for (int i = 0; i < visiblePagesCount; i++) {
+            int page = firstVisiblePage + i;
+            if (!visiblePageRects[i].isEmpty() && (hasThumbnail(page) || isPageCovered(page))) {
+                toScreen(visiblePageRects[i], clipRect);
+                clipOut(canvas, clipRect);
+            }
+        }
+    }
+
+    /** Map rect in draw coordinates to the screen */
+    private void toScreen(RectF rect, RectF out) {
+        float drawScale = zoom / drawLayoutZoom;
+        float translateX = getDrawTranslationX();
+        float translateY = getDrawTranslationY();
+        out.set(rect.left * drawScale + translateX, rect.top * drawScale + translateY,
+                rect.right * drawScale + translateX, rect.bottom * drawScale + translateY);
+    }
+
+    /** Position of the draw origin on the screen */
+    private float getDrawTranslationX() {
+        return (float) (currentXOffset + drawOriginX * zoom / drawLayoutZoom);
+    }
+
+    private float getDrawTranslationY() {
+        return (float) (currentYOffset + drawOriginY * zoom / drawLayoutZoom);
+    }
+
+    /** Draw thumbnail or draft only where parts of the current level are missing */
+    private void drawUncoveredPart(Canvas canvas, PagePart part) {
+        int page = part.getPage();
+        int index = page - firstVisiblePage;
+        calculateDrawBounds(page, part.getPageRelativeBounds(), partBounds);
+        if (index < 0 || index >= visiblePagesCount || visiblePageCoverage[index] == COVERAGE_NONE
+                || !canClipOut(canvas)) {
+            // parts drawn later paint over it
+            drawPart(canvas, part, partBounds);
+            return;
+        }
+        if (visiblePageCoverage[index] == COVERAGE_FULL) {
+            return;
+        }
+
+        int saveCount = canvas.save();
+        DrawingSnapshot snapshot = cacheManager.getDrawingSnapshot();
+        Node[] nodes = snapshot.coveringNodes;
+        for (int i = snapshot.firstCoveringNode(page); i < nodes.length && nodes[i].part.getPage() == page; i++) {
+            if (!nodes[i].part.getRenderedBitmap().isRecycled()) {
+                clipOut(canvas, getDrawBounds(nodes[i]));
+            }
+        }
+        drawPart(canvas, part, partBounds);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /** Hardware accelerated canvas supports only intersection of clips before API 18 */
+    private static boolean canClipOut(Canvas canvas) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2 || !canvas.isHardwareAccelerated();
+    }
+
+    /** Exclude rect from the clip, does nothing if the canvas cannot do it */
+    private static void clipOut(Canvas canvas, RectF rect) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            canvas.clipOutRect(rect);
+        } else if (canClipOut(canvas)) {
+            canvas.clipRect(rect, Region.Op.DIFFERENCE);
+        }
+    }
+
+    /** Issue a new stamp if the draw zoom changed, or the viewport moved far from the draw origin */
+    private void updateDrawLayoutStamp() {
+        float drawZoom = scaleSnapshotActive ? scaleSnapshotZoom : zoom;
+        double viewportX = -currentXOffset * drawZoom / zoom;
+        double viewportY = -currentYOffset * drawZoom / zoom;
+        if (drawZoom != drawLayoutZoom || Math.abs(viewportX - drawOriginX) > DRAW_ORIGIN_MAX_DISTANCE
+                || Math.abs(viewportY - drawOriginY) > DRAW_ORIGIN_MAX_DISTANCE) {
+            drawLayoutZoom = drawZoom;
+            drawOriginX = viewportX;
+            drawOriginY = viewportY;
+            drawLayoutStamp++;
+        }
+    }
+
+    /** Get destination of the cached part in draw coordinates, computed again only after zoom, layout or origin changed */
+    private RectF getDrawBounds(Node node) {
+        if (node.drawLayoutStamp != drawLayoutStamp) {
+            calculateDrawBounds(node.part.getPage(), node.part.getPageRelativeBounds(), node.drawBounds);
+            node.drawLayoutStamp = drawLayoutStamp;
+        }
+        return node.drawBounds;
+    }
+
+    /** Draw a given PagePart on the canvas at given destination in draw coordinates */
+    private void drawPart(Canvas canvas, PagePart part, RectF dstRect) {
+        Bitmap renderedBitmap = part.getRenderedBitmap();
+
+        if (renderedBitmap.isRecycled()) {
+            return;
+        }
+
+        // Check if bitmap is in the screen and in the region which is being redrawn
+        if (quickReject(canvas, dstRect)) {
+            return;
+        }
+
+        canvas.drawBitmap(renderedBitmap, null, dstRect, paint);
+
+        if (Constants.DEBUG_MODE) {
+            debugPaint.setColor(part.getPage() % 2 == 0 ? Color.RED : Color.BLUE);
+            canvas.drawRect(dstRect, debugPaint);
+        }
+    }
+
+    /** True if rect is outside of the clip of the canvas, edge type is ignored since API 30 */
+    @SuppressWarnings("deprecation")
+    private static boolean quickReject(Canvas canvas, RectF rect) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+            return canvas.quickReject(rect);
+        }
+        return canvas.quickReject(rect, Canvas.EdgeType.AA);
+    }
+
+    /**
+     * Calculate destination of the region of the page in draw coordinates,
+     * that is document coordinates at the draw zoom relative to the draw origin
+     */
+    private void calculateDrawBounds(int page, RectF pageRelativeBounds, RectF dstRect) {
+        // Move to the target page
+        float localTranslationX;
+        float localTranslationY;
+        float pageWidth = pdfFile.getPageWidth(page, 1);
+        float pageHeight = pdfFile.getPageHeight(page, 1);
+
+        if (swipeVertical) {
+            localTranslationY = (float) (pdfFile.getPageOffset(page, drawLayoutZoom) - drawOriginY);
+            float maxWidth = pdfFile.getMaxPageWidth();
+            localTranslationX = (float) ((maxWidth - pageWidth) * drawLayoutZoom / 2 - drawOriginX);
+        } else {
+            localTranslationX = (float) (pdfFile.getPageOffset(page, drawLayoutZoom) - drawOriginX);
+            float maxHeight = pdfFile.getMaxPageHeight();
+            localTranslationY = (float) ((maxHeight - pageHeight) * drawLayoutZoom / 2 - drawOriginY);
+        }
+
+        float offsetX = pageRelativeBounds.left * pageWidth * drawLayoutZoom;
+        float offsetY = pageRelativeBounds.top * pageHeight * drawLayoutZoom;
+        float width = pageRelativeBounds.width() * pageWidth * drawLayoutZoom;
+        float height = pageRelativeBounds.height() * pageHeight * drawLayoutZoom;
+
+        // If we use float values for this rectangle, there will be
+        // a possible gap between page parts, especially when
+        // the zoom level is high.
+        dstRect.set((int) offsetX, (int) offsetY,
+                (int) (offsetX + width),
+                (int) (offsetY + height));
+        dstRect.offset(localTranslationX, localTranslationY);
+    }
+
+    /**
+     * Load all the parts around the center of the screen,
+     * taking into account X and Y offsets, zoom level, and
+     * the current page displayed
+     */
+    public void loadPages() {
+        if (pdfFile == null || renderingHandler == null) {
+            return;
+        }
+
+        if (pageSizesRead && !isInMotion()) {
+            applyReadPageSizes();
+        }
+
+        // Tasks which are not requested again are dropped
+        renderingHandler.startGeneration();
+        cacheManager.makeANewSet(TilePyramid.getLevel(zoom));
+
+        pagesLoader.loadPages();
+        renderingHandler.finishGeneration();
+        redraw();
+    }
+
+    /** Called when the PDF is loaded */
+    void loadComplete(PdfFile pdfFile) {
+        state = State.LOADED;
+
+        this.pdfFile = pdfFile;
+
+        renderingHandler = new RenderingHandler(this);
+        renderingHandler.start();
+
+        pageSizesRead = false;
+        if (!pdfFile.isLayoutEstimated()) {
+            onLoadStage(LoadStage.LAYOUT_COMPLETE);
+        }
+
+        if (scrollHandle != null) {
+            scrollHandle.setupLayout(this);
+            isScrollHandleInit = true;
+        }
+
+        dragPinchManager.enable();
+
+        callbacks.callOnLoadComplete(pdfFile.getPagesCount());
+
+        jumpTo(defaultPage, false);
+    }
+
+    void onLoadStage(LoadStage stage) {
+        callbacks.callOnLoadStage(stage, SystemClock.uptimeMillis() - loadStartMillis);
+    }
+
+    /**
+     * Start reading real sizes of pages with estimated size, after the first screen is rendered,
+     * so it does not wait for the document handle, or when pages with estimated size are visible
+     */
+    private void startPageLayoutResolver() {
+        if (pageLayoutResolver == null && pdfFile != null && pdfFile.isLayoutEstimated()) {
+            pageLayoutResolver = new PageLayoutResolver(this, pdfFile);
+            pageLayoutResolver.start();
+        }
+    }
+
+    /** Read sizes of visible pages with estimated size before the others, so they can be rendered */
+    void requestPageSizes(int fromPage, int toPage) {
+        startPageLayoutResolver();
+        if (pageLayoutResolver != null) {
+            pageLayoutResolver.requestPages(fromPage, toPage);
+        }
+    }
+
+    /** Called by {@link PageLayoutResolver} when real sizes of some pages were read */
+    void onPageSizesRead(PdfFile pdfFile) {
+        if (pdfFile != this.pdfFile) {
+            return;
+        }
+        pageSizesRead = true;
+        if (!isInMotion()) {
+            // otherwise sizes are applied by loadPages() called when the motion ends
+            loadPages();
+        }
+    }
+
+    /**
+     * Apply page sizes read in the background to the layout,
+     * the point in the center of the view stays at the same place of the same page
+     */
+    private void applyReadPageSizes() {
+        double centerX = -currentXOffset + getWidth() * 0.5f;
+        double centerY = -currentYOffset + getHeight() * 0.5f;
+        double primaryCenter = swipeVertical ? centerY : centerX;
+        double secondaryCenter = swipeVertical ? centerX : centerY;
+
+        int page = pdfFile.getPageAtOffset(primaryCenter, zoom);
+        float pageLength = pdfFile.getPageLength(page, zoom);
+        double relativeInPage = pageLength > 0 ? (primaryCenter - pdfFile.getPageOffset(page, zoom)) / pageLength : 0;
+        float maxPageWidth = pdfFile.getMaxPageWidth();
+        float maxPageHeight = pdfFile.getMaxPageHeight();
+        double relativeSecondary = secondaryCenter / toCurrentScale(swipeVertical ? maxPageWidth : maxPageHeight);
+
+        pageSizesRead = false;
+        boolean wasEstimated = pdfFile.isLayoutEstimated();
+        boolean changed = pdfFile.applyPageSizes(new Size(getWidth(), getHeight()));
+        if (wasEstimated && !pdfFile.isLayoutEstimated()) {
+            onLoadStage(LoadStage.LAYOUT_COMPLETE);
+        }
+        if (!changed) {
+            return;
+        }
+
+        // bounds of parts are relative to their pages, so cached parts stay valid even if a page larger
+        // than all pages read so far changed the scale of every page, they are only drawn scaled
+        drawLayoutStamp++;
+
+        primaryCenter = pdfFile.getPageOffset(page, zoom) + relativeInPage * pdfFile.getPageLength(page, zoom);
+        secondaryCenter = relativeSecondary
+                * toCurrentScale(swipeVertical ? pdfFile.getMaxPageWidth() : pdfFile.getMaxPageHeight());
+        if (swipeVertical) {
+            moveTo(-secondaryCenter + getWidth() * 0.5f, -primaryCenter + getHeight() * 0.5f);
+        } else {
+            moveTo(-primaryCenter + getWidth() * 0.5f, -secondaryCenter + getHeight() * 0.5f);
+        }
+    }
+
+    void loadError(Throwable t) {
+        state = State.ERROR;
+        // store reference, because callbacks will be cleared in recycle() method
+        OnErrorListener onErrorListener = callbacks.getOnError();
+        recycle();
+        invalidate();
+        if (onErrorListener != null) {
+            onErrorListener.onError(t);
+        } else {
+            Log.e("PDFView", "load pdf error", t);
+        }
+    }
+
+    void redraw() {
+        invalidate();
+    }
+
+    /**
+     * Redraw only the region of the screen covered by the part, after it was rendered.
+     * Scroll and zoom changes redraw the whole view.
+     */
+    void redrawPart(PagePart part) {
+        if (state != State.SHOWN || recycled) {
+            redraw();
+            return;
+        }
+        updateDrawLayoutStamp();
+        calculateDrawBounds(part.getPage(), part.getPageRelativeBounds(), partBounds);
+        toScreen(partBounds, clipRect);
+        int left = (int) Math.floor(clipRect.left);
+        int top = (int) Math.floor(clipRect.top);
+        int right = (int) Math.ceil(clipRect.right);
+        int bottom = (int) Math.ceil(clipRect.bottom);
+        if (right > 0 && bottom > 0 && left < getWidth() && top < getHeight()) {
+            invalidate(left, top, right, bottom);
+        }
+    }
+
+    /**
+     * Called when a rendering task is over and
+     * a PagePart has been freshly created.
+     *
+     * @param part The created PagePart.
+     */
+    public void onBitmapRendered(PagePart part) {
+        cacheRenderedPart(part);
+        redrawPart(part);
+    }
+
+    /**
+     * Put rendered part to the cache, regions of parts evicted by it are redrawn,
+     * the region of the part itself is redrawn by {@link #redrawPart(PagePart)}
+     */
+    void cacheRenderedPart(PagePart part) {
+        // when it is first rendered part
+        if (state == State.LOADED) {
+            state = State.SHOWN;
+            callbacks.callOnRender(pdfFile.getPagesCount());
+            onLoadStage(LoadStage.FIRST_PAGE_RENDERED);
+            startPageLayoutResolver();
+        }
+
+        if (part.isThumbnail()) {
+            cacheManager.cacheThumbnail(part);
+        } else if (part.isDraft()) {
+            cacheManager.cacheDraft(part);
+        } else {
+            cacheManager.cachePart(part, evictedParts);
+            // parts evicted from the visible region leave it to whatever is drawn below them
+            for (int i = 0; i < evictedParts.size(); i++) {
+                redrawPart(evictedParts.get(i));
+            }
+            evictedParts.clear();
+        }
+    }
+
+    public void moveTo(float offsetX, float offsetY) {
+        moveTo(offsetX, offsetY, true);
+    }
+
+    /** Same as {@link #moveTo(float, float)} in double precision */
+    void moveTo(double offsetX, double offsetY) {
+        moveTo(offsetX, offsetY, true);
+    }
+
+    /**
+     * Move to the given X and Y offsets, but check them ahead of time
+     * to be sure not to go outside the the big strip.
+     *
+     * @param offsetX    The big strip X offset to use as the left border of the screen.
+     * @param offsetY    The big strip Y offset to use as the right border of the screen.
+     * @param moveHandle whether to move scroll handle or not
+     */
+    public void moveTo(float offsetX, float offsetY, boolean moveHandle) {
+        moveTo((double) offsetX, (double) offsetY, moveHandle);
+    }
+
+    /** Same as {@link #moveTo(float, float, boolean)} in double precision */
+    void moveTo(double offsetX, double offsetY, boolean moveHandle) {
+        if (swipeVertical) {
+            // Check X offset
+            float scaledPageWidth = toCurrentScale(pdfFile.getMaxPageWidth());
+            if (scaledPageWidth < getWidth()) {
+                offsetX = getWidth() / 2 - scaledPageWidth / 2;
+            } else {
+                if (offsetX > 0) {
+                    offsetX = 0;
+                } else if (offsetX + scaledPageWidth < getWidth()) {
+                    offsetX = getWidth() - scaledPageWidth;
+                }
+            }
+
+            // Check Y offset
+            double contentHeight = pdfFile.getDocLen(zoom);
+            if (contentHeight < getHeight()) { // whole document height visible on screen
+                offsetY = (getHeight() - contentHeight) / 2;
+            } else {
+                if (offsetY > 0) { // top visible
+                    offsetY = 0;
+                } else if (offsetY + contentHeight < getHeight()) { // bottom visible
+                    offsetY = -contentHeight + getHeight();
+                }
+            }
+
+            if (offsetY < currentYOffset) {
+                scrollDir = ScrollDir.END;
+            } else if (offsetY > currentYOffset) {
+                scrollDir = ScrollDir.START;
+            } else {
+                scrollDir = ScrollDir.NONE;
+            }
+        } else {
+            // Check Y offset
+            float scaledPageHeight = toCurrentScale(pdfFile.getMaxPageHeight());
+            if (scaledPageHeight < getHeight()) {
+                offsetY = getHeight() / 2 - scaledPageHeight / 2;
+            } else {
+                if (offsetY > 0) {
+                    offsetY = 0;
+                } else if (offsetY + scaledPageHeight < getHeight()) {
+                    offsetY = getHeight() - scaledPageHeight;
+                }
+            }
+
+            // Check X offset
+            double contentWidth = pdfFile.getDocLen(zoom);
+            if (contentWidth < getWidth()) { // whole document width visible on screen
+                offsetX = (getWidth() - contentWidth) / 2;
+            } else {
+                if (offsetX > 0) { // left visible
+                    offsetX = 0;
+                } else if (offsetX + contentWidth < getWidth()) { // right visible
+                    offsetX = -contentWidth + getWidth();
+                }
+            }
+
+            if (offsetX < currentXOffset) {
+                scrollDir = ScrollDir.END;
+            } else if (offsetX > currentXOffset) {
+                scrollDir = ScrollDir.START;
+            } else {
+                scrollDir = ScrollDir.NONE;
+            }
+        }
+
+        currentXOffset = offsetX;
+        currentYOffset = offsetY;
+        float positionOffset = getPositionOffset();
+
+        if (moveHandle && scrollHandle != null && !documentFitsView()) {
+            scrollHandle.setScroll(positionOffset);
+        }
+
+        callbacks.callOnPageScroll(getCurrentPage(), positionOffset);
+
+        redraw();
+    }
+
+    void loadPageByOffset() {
+        if (0 == pdfFile.getPagesCount()) {
+            return;
+        }
+
+        double offset;
+        float screenCenter;
+        if (swipeVertical) {
+            offset = currentYOffset;
+            screenCenter = ((float) getHeight()) / 2;
+        } else {
+            offset = currentXOffset;
+            screenCenter = ((float) getWidth()) / 2;
+        }
+
+        int page = pdfFile.getPageAtOffset(-(offset - screenCenter), zoom);
+
+        if (page >= 0 && page <= pdfFile.getPagesCount() - 1 && page != getCurrentPage()) {
+            showPage(page);
+        } else {
+            loadPages();
+        }
+    }
+
+    /**
+     * Animate to the nearest snapping position for the current SnapPolicy
+     */
+    public void performPageSnap() {
+        if (!pageSnap || pdfFile == null || pdfFile.getPagesCount() == 0) {
+            return;
+        }
+        int centerPage = findFocusPage(currentXOffset, currentYOffset);
+        SnapEdge edge = findSnapEdge(centerPage);
+        if (edge == SnapEdge.NONE) {
+            return;
+        }
+
+        double offset = snapOffsetForPage(centerPage, edge);
+        if (swipeVertical) {
+            animationManager.startYAnimation(currentYOffset, -offset);
+        } else {
+            animationManager.startXAnimation(currentXOffset, -offset);
+        }
+    }
+
+    /**
+     * Find the edge to snap to when showing the specified page
+     */
+    SnapEdge findSnapEdge(int page) {
+        if (!pageSnap || page < 0) {
+            return SnapEdge.NONE;
+        }
+        double currentOffset = swipeVertical ? currentYOffset : currentXOffset;
+        double offset = -pdfFile.getPageOffset(page, zoom);
+        int length = swipeVertical ? getHeight() : getWidth();
+        float pageLength = pdfFile.getPageLength(page, zoom);
+
+        if (length >= pageLength) {
+            return SnapEdge.CENTER;
+        } else if (currentOffset >= offset) {
+            return SnapEdge.START;
+        } else if (offset - pageLength > currentOffset - length) {
+            return SnapEdge.END;
+        } else {
+            return SnapEdge.NONE;
+        }
+    }
+
+    /**
+     * Get the offset to move to in order to snap to the page
+     */
+    double snapOffsetForPage(int pageIndex, SnapEdge edge) {
+        double offset = pdfFile.getPageOffset(pageIndex, zoom);
+
+        float length = swipeVertical ? getHeight() : getWidth();
+        float pageLength = pdfFile.getPageLength(pageIndex, zoom);
+
+        if (edge == SnapEdge.CENTER) {
+            offset = offset - length / 2f + pageLength / 2f;
+        } else if (edge == SnapEdge.END) {
+            offset = offset - length + pageLength;
+        }
+        return offset;
+    }
+
+    int findFocusPage(double xOffset, double yOffset) {
+        double currOffset = swipeVertical ? yOffset : xOffset;
+        float length = swipeVertical ? getHeight() : getWidth();
+        // make sure first and last page can be found
+        if (currOffset > -1) {
+            return 0;
+        } else if (currOffset < -pdfFile.getDocLen(zoom) + length + 1) {
+            return pdfFile.getPagesCount() - 1;
+        }
+        // else find page in center
+        double center = currOffset - length / 2f;
+        return pdfFile.getPageAtOffset(-center, zoom);
+    }
+
+    /**
+     * @return true if single page fills the entire screen in the scrolling direction
+     */
+    public boolean pageFillsScreen() {
+        double start = -pdfFile.getPageOffset(currentPage, zoom);
+        double end = start - pdfFile.getPageLength(currentPage, zoom);
+        if (isSwipeVertical()) {
+            return start > currentYOffset && end < currentYOffset - getHeight();
+        } else {
+            return start > currentXOffset && end < currentXOffset - getWidth();
+        }
+    }
+
+    /**
+     * Move relatively to the current position.
+     *
+     * @param dx The X difference you want to apply.
+     * @param dy The Y difference you want to apply.
+     * @see #moveTo(float, float)
+     */
+    public void moveRelativeTo(float dx, float dy) {
+        moveTo(currentXOffset + dx, currentYOffset + dy);
+    }
+
+    /**
+     * Change the zoom level
+     */
+    public void zoomTo(float zoom) {
+        this.zoom = zoom;
+    }
+
+    /**
+     * Change the zoom level, relatively to a pivot point.
+     * It will call moveTo() to make sure the given point stays
+     * in the middle of the screen.
+     *
+     * @param zoom  The zoom level.
+     * @param pivot The point on the screen that should stays.
+     */
+    public void zoomCenteredTo(float zoom, PointF pivot) {
+        float dzoom = zoom / this.zoom;
+        zoomTo(zoom);
+        double baseX = currentXOffset * dzoom;
+        double baseY = currentYOffset * dzoom;
+        baseX += (pivot.x - pivot.x * dzoom);
+        baseY += (pivot.y - pivot.y * dzoom);
+        moveTo(baseX, baseY);
+    }
+
+    /**
+     * @see #zoomCenteredTo(float, PointF)
+     */
+    public void zoomCenteredRelativeTo(float dzoom, PointF pivot) {
+        zoomCenteredTo(zoom * dzoom, pivot);
+    }
+
+    /**
+     * Checks if whole document can be displayed on screen, doesn't include zoom
+     *
+     * @return true if whole document can displayed at once, false otherwise
+     */
+    public boolean documentFitsView() {
+        double len = pdfFile.getDocLen(1);
+        if (swipeVertical) {
+            return len < getHeight();
+        } else {
+            return len < getWidth();
+        }
+    }
+
+    public void fitToWidth(int page) {
+        if (state != State.SHOWN) {
+            Log.e(TAG, "Cannot fit, document not rendered yet");
+            return;
+        }
+        zoomTo(getWidth() / pdfFile.getPageWidth(page, 1));
+        jumpTo(page);
+    }
+
+    public SizeF getPageSize(int pageIndex) {
+        if (pdfFile == null) {
+            return new SizeF(0, 0);
+        }
+        return pdfFile.getPageSize(pageIndex);
+    }
+
+    public int getCurrentPage() {
+        return currentPage;
+    }
+
+    public float getCurrentXOffset() {
+        return (float) currentXOffset;
+    }
+
+    public float getCurrentYOffset() {
+        return (float) currentYOffset;
+    }
+
+    /** Same as {@link #getCurrentXOffset()} in double precision */
+    double getExactXOffset() {
+        return currentXOffset;
+    }
+
+    /** Same as {@link #getCurrentYOffset()} in double precision */
+    double getExactYOffset() {
+        return currentYOffset;
+    }
+
+    public float toRealScale(float size) {
+        return size / zoom;
+    }
+
+    public float toCurrentScale(float size) {
+        return size * zoom;
+    }
+
+    /**
+     * Get document size taking into account current scale (zoom).
+     * Width is the page with maximum width and height is total height of all pages.
+     * @return document size
+     */
+    public SizeF getDocumentSize() {
+        return  getDocumentSize(getZoom());
+    }
+
+    /**
+     * Get document size taking into account specific scale (zoom).
+     * Width - is largest page width; height - is total height of all pages in the document.
+     * @param zoom scale value
+     * @return document size
+     */
+    public SizeF getDocumentSize(float zoom) {
+        if (pdfFile == null) {
+            return null;
+        }
+
+        float documentWidth = pdfFile.getMaxPageSize().getWidth() * zoom;
+        float documentHeight = (float) pdfFile.getDocLen(zoom);
+        SizeF documentSize = new SizeF(documentWidth, documentHeight);
+        return documentSize;
+    }
+
+    /**
+     * Get specific page offset taking into account current scale (zoom) and scroll direction
+     * @param pageIndex page index
+     * @return page offset
+     */
+    public PointF getPageOffset(int pageIndex) {
+        return getPageOffset(pageIndex, getZoom());
+    }
+
+    /**
+     * Get specific page offset taking into account specific scale (zoom) and scroll direction
+     * @param pageIndex page index
+     * @param zoom scale value
+     * @return page offset
+     */
+    public PointF getPageOffset(int pageIndex, float zoom) {
+        if (pdfFile == null) {
+            return null;
+        }
+
+        float pageX, pageY;
+
+        if (isSwipeVertical()) {
+            pageX = pdfFile.getSecondaryPageOffset(pageIndex, zoom);
+            pageY = (float) pdfFile.getPageOffset(pageIndex, zoom);
+        } else {
+            pageY = pdfFile.getSecondaryPageOffset(pageIndex, zoom);
+            pageX = (float) pdfFile.getPageOffset(pageIndex, zoom);
+        }
+
+        return  new PointF(pageX, pageY);
+    }
+
+    public float getZoom() {
+        return zoom;
+    }
+
+    public boolean isZooming() {
+        return zoom != minZoom;
+    }
+
+    private void setDefaultPage(int defaultPage) {
+        this.defaultPage = defaultPage;
+    }
+
+    int getDefaultPage() {
+        return defaultPage;
+    }
+
+    public void resetZoom() {
+        zoomTo(minZoom);
+    }
+
+    public void resetZoomWithAnimation() {
+        zoomWithAnimation(minZoom);
+    }
+
+    public void zoomWithAnimation(float centerX, float centerY, float scale) {
+        animationManager.startZoomAnimation(centerX, centerY, zoom, scale);
+    }
+
+    public void zoomWithAnimation(float scale) {
+        animationManager.startZoomAnimation(getWidth() / 2, getHeight() / 2, zoom, scale);
+    }
+
+    private void setScrollHandle(ScrollHandle scrollHandle) {
+        this.scrollHandle = scrollHandle;
+    }
+
+    /**
+     * Get page number at given offset
+     *
+     * @param positionOffset scroll offset between 0 and 1
+     * @return page number at given offset, starting from 0
+     */
+    public int getPageAtPositionOffset(float positionOffset) {
+        return pdfFile.getPageAtOffset(pdfFile.getDocLen(zoom) * positionOffset, zoom);
+    }
+
+    public float getMinZoom() {
+        return minZoom;
+    }
+
+    public void setMinZoom(float minZoom) {
+        this.minZoom = minZoom;
+    }
+
+    public float getMidZoom() {
+        return midZoom;
+    }
+
+    public void setMidZoom(float midZoom) {
+        this.midZoom = midZoom;
+    }
+
+    public float getMaxZoom() {
+        return maxZoom;
+    }
+
+    public void setMaxZoom(float maxZoom) {
+        this.maxZoom = maxZoom;
+    }
+
+    /**
+     * Set maximum memory used by rendered parts and thumbnails.
+     * By default it is based on memory class of the device, see {@link Constants.Cache#CACHE_MEMORY_RATIO}
+     *
+     * @param maxBytes cache size in bytes
+     */
+    public void setCacheMaxBytes(long maxBytes) {
+        cacheManager.setMaxBytes(maxBytes);
+    }
+
+    public long getCacheMaxBytes() {
+        return cacheManager.getMaxBytes();
+    }
+
+    /** Get memory currently used by bitmaps of rendered parts and thumbnails, in bytes */
+    public long getCacheSizeBytes() {
+        return cacheManager.getSizeBytes();
+    }
+
+    /**
+     * Set maximum memory used by bitmaps kept for reuse after their parts were evicted from the cache.
+     * By default it is based on memory class of the device, see {@link Constants.Cache#BITMAP_POOL_MEMORY_RATIO}
+     *
+     * @param maxBytes pool size in bytes, 0 disables reusing of bitmaps
+     */
+    public void setBitmapPoolMaxBytes(long maxBytes) {
+        bitmapPool.setMaxBytes(maxBytes);
+    }
+
+    public long getBitmapPoolMaxBytes() {
+        return bitmapPool.getMaxBytes();
+    }
+
+    /** Get memory currently used by bitmaps kept for reuse, in bytes */
+    public long getBitmapPoolSizeBytes() {
+        return bitmapPool.getSizeBytes();
+    }
+
+    /** Get number of rendered parts which reused a pooled bitmap */
+    public int getBitmapPoolHitCount() {
+        return bitmapPool.getHitCount();
+    }
+
+    /** Get number of rendered parts which needed a newly allocated bitmap */
+    public int getBitmapPoolMissCount() {
+        return bitmapPool.getMissCount();
+    }
+
+    private void setDiskCache(String documentFingerprint, long maxBytes) {
+        if (diskTileCache != null) {
+            diskTileCache.close();
+        }
+        diskTileCache = documentFingerprint != null
+                ? new DiskTileCache(getContext(), documentFingerprint, annotationRendering, maxBytes, bitmapPool)
+                : null;
+        cacheManager.setDiskTileCache(diskTileCache);
+    }
+
+    public void useBestQuality(boolean bestQuality) {
+        this.bestQuality = bestQuality;
+    }
+
+    public boolean isBestQuality() {
+        return bestQuality;
+    }
+
+    public boolean isSwipeVertical() {
+        return swipeVertical;
+    }
+
+    public boolean isSwipeEnabled() {
+        return enableSwipe;
+    }
+
+    private void setSwipeVertical(boolean swipeVertical) {
+        this.swipeVertical = swipeVertical;
+    }
+
+    public void enableAnnotationRendering(boolean annotationRendering) {
+        this.annotationRendering = annotationRendering;
+    }
+
+    public boolean isAnnotationRendering() {
+        return annotationRendering;
+    }
+
+    public void enableProgressiveRendering(boolean progressiveRendering) {
+        this.progressiveRendering = progressiveRendering;
+    }
+
+    public boolean isProgressiveRendering() {
+        return progressiveRendering;
+    }
+
+    public void enableMotionQualityRendering(boolean motionQualityRendering) {
+        this.motionQualityRendering = motionQualityRendering;
+    }
+
+    public boolean isMotionQualityRendering() {
+        return motionQualityRendering;
+    }
+
+    /** True if the view is flinging or scaling */
+    boolean isInMotion() {
+        return animationManager.isFlinging() || dragPinchManager.isScaling();
+    }
+
+    public void enableRenderDuringScale(boolean renderDuringScale) {
+        this.renderDuringScale = renderDuringScale;
+    }
+
+    public void enableScaleSnapshot(boolean scaleSnapshot) {
+        this.scaleSnapshot = scaleSnapshot;
+    }
+
+    public boolean isScaleSnapshot() {
+        return scaleSnapshot;
+    }
+
+    public void setScaleSnapshotRenderDelay(int scaleSnapshotRenderDelay) {
+        this.scaleSnapshotRenderDelay = scaleSnapshotRenderDelay;
+    }
+
+    /**
+     * Start drawing parts cached now at the current zoom under a scale transformation, if enabled.
+     * The drawn parts are frozen, parts rendered or evicted meanwhile do not change them.
+     */
+    void startScaleSnapshot() {
+        if (scaleSnapshot) {
+            scaleSnapshotActive = true;
+            scaleSnapshotZoom = zoom;
+            cacheManager.freezeDrawingSnapshot();
+        }
+    }
+
+    /**
+     * Called after zoom was changed during scaling, freezes the snapshot again if it showed parts
+     * rendered after the delay, and requests parts at the new zoom after the delay
+     */
+    void onScaleSnapshotChanged() {
+        if (!scaleSnapshotActive) {
+            return;
+        }
+        cacheManager.freezeDrawingSnapshot();
+        if (scaleSnapshotRenderDelay > 0) {
+            removeCallbacks(scaleSnapshotRender);
+            postDelayed(scaleSnapshotRender, scaleSnapshotRenderDelay);
+        }
+    }
+
+    void finishScaleSnapshot() {
+        removeCallbacks(scaleSnapshotRender);
+        scaleSnapshotActive = false;
+        cacheManager.unfreezeDrawingSnapshot();
+        redraw();
+    }
+
+    /** True if cached parts are drawn under a scale transformation, because the view is scaling */
+    boolean isScaleSnapshotActive() {
+        return scaleSnapshotActive;
+    }
+
+    public boolean isAntialiasing() {
+        return enableAntialiasing;
+    }
+
+    public void enableAntialiasing(boolean enableAntialiasing) {
+        this.enableAntialiasing = enableAntialiasing;
+    }
+
+    public int getSpacingPx() {
+        return spacingPx;
+    }
+
+    public boolean isAutoSpacingEnabled() {
+        return autoSpacing;
+    }
+
+    public void setPageFling(boolean pageFling) {
+        this.pageFling = pageFling;
+    }
+
+    public boolean isPageFlingEnabled() {
+        return pageFling;
+    }
+
+    private void setSpacing(int spacingDp) {
+        this.spacingPx = Util.getDP(getContext(), spacingDp);
+    }
+
+    private void setAutoSpacing(boolean autoSpacing) {
+        this.autoSpacing = autoSpacing;
+    }
+
+    private void setPageFitPolicy(FitPolicy pageFitPolicy) {
+        this.pageFitPolicy = pageFitPolicy;
+    }
+
+    public FitPolicy getPageFitPolicy() {
+        return pageFitPolicy;
+    }
+
+    /**
+     * Gets currently set page size calculator handler
+     *
+     * @return
+     */
+    public PageSizeCalculatorHandler getPageSizeCalculatorHandler() {
+        return  pageSizeCalculatorHandler;
+    }
+
+    /**
+     * Sets page size calculator which is used to optimal page sizes to fit into view
+     *
+     * @param calculatorHandler
+     */
+    public void setPageSizeCalculatorHandler(PageSizeCalculatorHandler calculatorHandler) {
+        pageSizeCalculatorHandler = calculatorHandler;
+    }
+
+    /**
+     * Sets backend used to open and render documents loaded later
+     *
+     * @param renderBackend backend or null to use pdfium
+     */
+    public void setRenderBackend(RenderBackend renderBackend) {
+        this.renderBackend = renderBackend;
+    }
+
+    private void setRenderThreads(int renderThreads) {
+        this.renderThreads = Math.max(1, renderThreads);
+    }
+
+    int getRenderThreads() {
+        return renderThreads;
+    }
+
+    /** Get number of rendering threads used by parallel rendering, one less than number of processors */
+    public static int getDefaultRenderThreads() {
+        return Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    private void setFitEachPage(boolean fitEachPage) {
+        this.fitEachPage = fitEachPage;
+    }
+
+    public boolean isFitEachPage() {
+        return fitEachPage;
+    }
+
+    private void setLazyLayout(boolean lazyLayout) {
+        this.lazyLayout = lazyLayout;
+    }
+
+    public boolean isLazyLayout() {
+        return lazyLayout;
+    }
+
+    public boolean isPageSnap() {
+        return pageSnap;
+    }
+
+    public void setPageSnap(boolean pageSnap) {
+        this.pageSnap = pageSnap;
+    }
+
+    public boolean doRenderDuringScale() {
+        return renderDuringScale;
+    }
+
+    /** Returns null if document is not loaded */
+    public PdfDocument.Meta getDocumentMeta() {
+        if (pdfFile == null) {
+            return null;
+        }
+        return pdfFile.getMetaData();
+    }
+
+    /** Will be empty until document is loaded */
+    public List<PdfDocument.Bookmark> getTableOfContents() {
+        if (pdfFile == null) {
+            return Collections.emptyList();
+        }
+        return pdfFile.getBookmarks();
+    }
+
+    /** Will be empty until document is loaded */
+    public List<PdfDocument.Link> getLinks(int page) {
+        if (pdfFile == null) {
+            return Collections.emptyList();
+        }
+        return pdfFile.getPageLinks(page);
+    }
+
+    /** Use an asset file as the pdf source */
+    public Configurator fromAsset(String assetName) {
+        return new Configurator(new AssetSource(assetName));
+    }
+
+    /** Use a file as the pdf source */
+    public Configurator fromFile(File file) {
+        return new Configurator(new FileSource(file));
+    }
+
+    /** Use URI as the pdf source, for use with content providers */
+    public Configurator fromUri(Uri uri) {
+        return new Configurator(new UriSource(uri));
+    }
+
+    /** Use bytearray as the pdf source, documents is not saved */
+    public Configurator fromBytes(byte[] bytes) {
+        return new Configurator(new ByteArraySource(bytes));
+    }
+
+    /** Use stream as the pdf source. Stream will be written to bytearray, because native code does not support Java Streams */
+    public Configurator fromStream(InputStream stream) {
+        return new Configurator(new InputStreamSource(stream));
+    }
+
+    /** Use custom source as pdf source */
+    public Configurator fromSource(DocumentSource docSource) {
+        return new Configurator(docSource);
+    }
+
+    private enum State {DEFAULT, LOADED, SHOWN, ERROR}
+
+    public class Configurator {
+
+        private final DocumentSource documentSource;
+
+        private int[] pageNumbers = null;
+
+        private boolean enableSwipe = true;
+
+        private boolean enableDoubletap = true;
+
+        private OnDrawListener onDrawListener;
+
+        private OnDrawListener onDrawAllListener;
+
+        private OnLoadCompleteListener onLoadCompleteListener;
+
+        private OnLoadStageListener onLoadStageListener;
+
+        private OnErrorListener onErrorListener;
+
+        private OnPageChangeListener onPageChangeListener;
+
+        private OnPageScrollListener onPageScrollListener;
+
+        private OnRenderListener onRenderListener;
+
+        private OnTapListener onTapListener;
+
+        private OnLongPressListener onLongPressListener;
+
+        private OnPageErrorListener onPageErrorListener;
+
+        private LinkHandler linkHandler = new DefaultLinkHandler(PDFView.this);
+
+        /** Page size calculator used to calculate optimal page sizes to fit into view */
+        private PageSizeCalculatorHandler pageSizeCalculatorHandler = new DefaultPageSizeCalculatorHandler();
+
+        private RenderBackend renderBackend = null;
+
+        private int renderThreads = 1;
+
+        private int defaultPage = 0;
+
+        private boolean swipeHorizontal = false;
+
+        private boolean annotationRendering = false;
+
+        private boolean progressiveRendering = false;
+
+        private boolean motionQualityRendering = false;
+
+        private boolean scaleSnapshot = false;
+
+        private int scaleSnapshotRenderDelay = 0;
+
+        private String password = null;
+
+        private ScrollHandle scrollHandle = null;
+
+        private boolean antialiasing = true;
+
+        private int spacing = 0;
+
+        private boolean autoSpacing = false;
+
+        private FitPolicy pageFitPolicy = FitPolicy.WIDTH;
+
+        private boolean fitEachPage = false;
+
+        private boolean lazyLayout = false;
+
+        private boolean pageFling = false;
+
+        private boolean pageSnap = false;
+
+        private boolean nightMode = false;
+
+        private long cacheMaxBytes = CacheManager.getDefaultMaxBytes(getContext());
+
+        private String diskCacheFingerprint = null;
+
+        private long diskCacheMaxBytes = 0;
+
+        private Configurator(DocumentSource documentSource) {
+            this.documentSource = documentSource;
+        }
+
+        public Configurator pages(int... pageNumbers) {
+            this.pageNumbers = pageNumbers;
+            return this;
+        }
+
+        public Configurator enableSwipe(boolean enableSwipe) {
+            this.enableSwipe = enableSwipe;
+            return this;
+        }
+
+        public Configurator enableDoubletap(boolean enableDoubletap) {
+            this.enableDoubletap = enableDoubletap;
+            return this;
+        }
+
+        public Configurator enableAnnotationRendering(boolean annotationRendering) {
+            this.annotationRendering = annotationRendering;
+            return this;
+        }
+
+        /**
+         * Render low resolution drafts of visible regions without annotations first,
+         * followed by parts in full quality
+         */
+        public Configurator enableProgressiveRendering(boolean progressiveRendering) {
+            this.progressiveRendering = progressiveRendering;
+            return this;
+        }
+
+        /**
+         * Render parts requested during fling or pinch in RGB_565 without annotations,
+         * and render them again in full quality when the view settles.
+         * Has no effect unless best quality or annotation rendering is enabled.
+         */
+        public Configurator enableMotionQualityRendering(boolean motionQualityRendering) {
+            this.motionQualityRendering = motionQualityRendering;
+            return this;
+        }
+
+        /**
+         * Draw parts cached when scaling starts under a scale transformation during scaling, without changing
+         * them until scaling ends, and render parts at the new zoom when scaling ends
+         *
+         * @param renderDelay delay in milliseconds after the last scale change, after which parts
+         *                    at the intermediate zoom are rendered and shown until the scale changes again,
+         *                    0 to render only when scaling ends
+         */
+        public Configurator scaleSnapshot(boolean scaleSnapshot, int renderDelay) {
+            this.scaleSnapshot = scaleSnapshot;
+            this.scaleSnapshotRenderDelay = renderDelay;
+            return this;
+        }
+
+        public Configurator onDraw(OnDrawListener onDrawListener) {
+            this.onDrawListener = onDrawListener;
+            return this;
+        }
+
+        public Configurator onDrawAll(OnDrawListener onDrawAllListener) {
+            this.onDrawAllListener = onDrawAllListener;
+            return this;
+        }
+
+        public Configurator onLoad(OnLoadCompleteListener onLoadCompleteListener) {
+            this.onLoadCompleteListener = onLoadCompleteListener;
+            return this;
+        }
+
+        public Configurator onPageScroll(OnPageScrollListener onPageScrollListener) {
+            this.onPageScrollListener = onPageScrollListener;
+            return this;
+        }
+
+        /** Report time of reaching each stage of opening the document, for example to measure time to first render */
+        public Configurator onLoadStage(OnLoadStageListener onLoadStageListener) {
+            this.onLoadStageListener = onLoadStageListener;
+            return this;
+        }
+
+        public Configurator onError(OnErrorListener onErrorListener) {
+            this.onErrorListener = onErrorListener;
+            return this;
+        }
+
+        public Configurator onPageError(OnPageErrorListener onPageErrorListener) {
+            this.onPageErrorListener = onPageErrorListener;
+            return this;
+        }
+
+        public Configurator onPageChange(OnPageChangeListener onPageChangeListener) {
+            this.onPageChangeListener = onPageChangeListener;
+            return this;
+        }
+
+        public Configurator onRender(OnRenderListener onRenderListener) {
+            this.onRenderListener = onRenderListener;
+            return this;
+        }
+
+        public Configurator onTap(OnTapListener onTapListener) {
+            this.onTapListener = onTapListener;
+            return this;
+        }
+
+        public Configurator onLongPress(OnLongPressListener onLongPressListener) {
+            this.onLongPressListener = onLongPressListener;
+            return this;
+        }
+
+        public Configurator linkHandler(LinkHandler linkHandler) {
+            this.linkHandler = linkHandler;
+            return this;
+        }
+
+        /**
+         * Sets custom page size calculator
+         *
+         * @param pageSizeCalculatorHandler custom page size calculator
+         * @return
+         */
+        public Configurator pageSizeCalculatorHandler(PageSizeCalculatorHandler pageSizeCalculatorHandler)
+        {
+            this.pageSizeCalculatorHandler = pageSizeCalculatorHandler;
+            return  this;
+        }
+
+        /**
+         * Sets backend used to open and render the document, pdfium is used by default
+         *
+         * @param renderBackend custom backend or null to use pdfium
+         * @return
+         */
+        public Configurator renderBackend(RenderBackend renderBackend) {
+            this.renderBackend = renderBackend;
+            return this;
+        }
+
+        /**
+         * Render parts in parallel with {@link #getDefaultRenderThreads()} threads,
+         * each of them opens its own instance of the document.
+         * Has no effect if the backend does not support parallel rendering, like the default pdfium backend.
+         *
+         * @return
+         */
+        public Configurator parallelRendering(boolean parallelRendering) {
+            this.renderThreads = parallelRendering ? getDefaultRenderThreads() : 1;
+            return this;
+        }
+
+        /**
+         * Render parts in parallel with given number of threads, each of them opens its own instance
+         * of the document. Fewer threads are used if the document source cannot be read more than once,
+         * and only one if the backend does not support parallel rendering, like the default pdfium backend.
+         *
+         * @param renderThreads number of rendering threads, 1 disables parallel rendering
+         * @return
+         */
+        public Configurator parallelRendering(int renderThreads) {
+            this.renderThreads = renderThreads;
+            return this;
+        }
+
+        public Configurator defaultPage(int defaultPage) {
+            this.defaultPage = defaultPage;
+            return this;
+        }
+
+        public Configurator swipeHorizontal(boolean swipeHorizontal) {
+            this.swipeHorizontal = swipeHorizontal;
+            return this;
+        }
+
+        public Configurator password(String password) {
+            this.password = password;
+            return this;
+        }
+
+        public Configurator scrollHandle(ScrollHandle scrollHandle) {
+            this.scrollHandle = scrollHandle;
+            return this;
+        }
+
+        public Configurator enableAntialiasing(boolean antialiasing) {
+            this.antialiasing = antialiasing;
+            return this;
+        }
+
+        public Configurator spacing(int spacing) {
+            this.spacing = spacing;
+            return this;
+        }
+
+        public Configurator autoSpacing(boolean autoSpacing) {
+            this.autoSpacing = autoSpacing;
+            return this;
+        }
+
+        public Configurator pageFitPolicy(FitPolicy pageFitPolicy) {
+            this.pageFitPolicy = pageFitPolicy;
+            return this;
+        }
+
+        public Configurator fitEachPage(boolean fitEachPage) {
+            this.fitEachPage = fitEachPage;
+            return this;
+        }
+
+        /**
+         * Show the document right after sizes of a few first pages are read, sizes of other pages
+         * are estimated and corrected in the background without moving the visible content.
+         * Pages are rendered when their real size is known, visible pages are measured first.
+         * Speeds up opening of documents with many pages.
+         */
+        public Configurator lazyLayout(boolean lazyLayout) {
+            this.lazyLayout = lazyLayout;
+            return this;
+        }
+
+        public Configurator pageSnap(boolean pageSnap) {
+            this.pageSnap = pageSnap;
+            return this;
+        }
+
+        public Configurator pageFling(boolean pageFling) {
+            this.pageFling = pageFling;
+            return this;
+        }
+
+        public Configurator nightMode(boolean nightMode) {
+            this.nightMode = nightMode;
+            return this;
+        }
+
+        /**
+         * Sets maximum memory used by rendered parts and thumbnails
+         *
+         * @param cacheMaxBytes cache size in bytes
+         * @return
+         */
+        public Configurator cacheMaxBytes(long cacheMaxBytes) {
+            this.cacheMaxBytes = cacheMaxBytes;
+            return this;
+        }
+
+        /**
+         * Keeps rendered parts evicted from memory in the cache directory of the application,
+         * so they do not have to be rendered again, also after the document is reopened
+         *
+         * @param documentFingerprint identifies the document and its content, for example a hash of the file
+         * @param maxBytes            maximum size of cached parts of all documents, in bytes
+         * @return
+         */
+        public Configurator diskCache(String documentFingerprint, long maxBytes) {
+            this.diskCacheFingerprint = documentFingerprint;
+            this.diskCacheMaxBytes = maxBytes;
+            return this;
+        }
+
+        public Configurator disableLongpress() {
+            PDFView.this.dragPinchManager.disableLongpress();
+            return this;
+        }
+
+        public void load() {
+            if (!hasSize) {
+                waitingDocumentConfigurator = this;
+                return;
+            }
+            PDFView.this.recycle();
+            PDFView.this.callbacks.setOnLoadComplete(onLoadCompleteListener);
+            PDFView.this.callbacks.setOnLoadStage(onLoadStageListener);
+            PDFView.this.callbacks.setOnError(onErrorListener);
+            PDFView.this.callbacks.setOnDraw(onDrawListener);
+            PDFView.this.callbacks.setOnDrawAll(onDrawAllListener);
+            PDFView.this.callbacks.setOnPageChange(onPageChangeListener);
+            PDFView.this.callbacks.setOnPageScroll(onPageScrollListener);
+            PDFView.this.callbacks.setOnRender(onRenderListener);
+            PDFView.this.callbacks.setOnTap(onTapListener);
+            PDFView.this.callbacks.setOnLongPress(onLongPressListener);
+            PDFView.this.callbacks.setOnPageError(onPageErrorListener);
+            PDFView.this.callbacks.setLinkHandler(linkHandler);
+            PDFView.this.setSwipeEnabled(enableSwipe);
+            PDFView.this.setNightMode(nightMode);
+            PDFView.this.enableDoubletap(enableDoubletap);
+            PDFView.this.setDefaultPage(defaultPage);
+            PDFView.this.setSwipeVertical(!swipeHorizontal);
+            PDFView.this.enableAnnotationRendering(annotationRendering);
+            PDFView.this.enableProgressiveRendering(progressiveRendering);
+            PDFView.this.enableMotionQualityRendering(motionQualityRendering);
+            PDFView.this.enableScaleSnapshot(scaleSnapshot);
+            PDFView.this.setScaleSnapshotRenderDelay(scaleSnapshotRenderDelay);
+            PDFView.this.setScrollHandle(scrollHandle);
+            PDFView.this.enableAntialiasing(antialiasing);
+            PDFView.this.setSpacing(spacing);
+            PDFView.this.setAutoSpacing(autoSpacing);
+            PDFView.this.setPageFitPolicy(pageFitPolicy);
+            PDFView.this.setFitEachPage(fitEachPage);
+            PDFView.this.setLazyLayout(lazyLayout);
+            PDFView.this.setPageSnap(pageSnap);
+            PDFView.this.setPageFling(pageFling);
+            PDFView.this.setPageSizeCalculatorHandler(pageSizeCalculatorHandler);
+            PDFView.this.setRenderBackend(renderBackend);
+            PDFView.this.setRenderThreads(renderThreads);
+            PDFView.this.setCacheMaxBytes(cacheMaxBytes);
+            PDFView.this.setDiskCache(diskCacheFingerprint, diskCacheMaxBytes);
+
+            if (pageNumbers != null) {
+                PDFView.this.load(documentSource, password, pageNumbers);
+            } else {
+                PDFView.this.load(documentSource, password);
+            }
+        }
+    }
+}
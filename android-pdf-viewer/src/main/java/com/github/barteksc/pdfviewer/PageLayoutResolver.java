@@ -0,0 +1,108 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer;
+
+import android.os.Process;
+
+import com.github.barteksc.pdfviewer.util.Constants;
+
+/**
+ * Reads real sizes of pages of a document opened with lazy layout on a background thread,
+ * in batches of {@link Constants#LAZY_LAYOUT_BATCH_PAGES} pages, each batch is handed over to the view,
+ * which applies it to the layout. Pages requested by the view, because they are visible, are read first.
+ */
+class PageLayoutResolver implements Runnable {
+
+    /** Number of pages read in order between checks for requested pages */
+    private static final int READ_CHUNK_PAGES = 64;
+
+    private final PDFView pdfView;
+
+    private final PdfFile pdfFile;
+
+    private final Thread thread;
+
+    private volatile boolean running = false;
+
+    /** Pages requested by the view, guarded by this resolver, requestedFrom is -1 if there is no request */
+    private int requestedFrom = -1;
+    private int requestedTo;
+
+    private final Runnable notifyRead = new Runnable() {
+        @Override
+        public void run() {
+            if (running) {
+                pdfView.onPageSizesRead(pdfFile);
+            }
+        }
+    };
+
+    PageLayoutResolver(PDFView pdfView, PdfFile pdfFile) {
+        this.pdfView = pdfView;
+        this.pdfFile = pdfFile;
+        this.thread = new Thread(this, "PDF layout");
+    }
+
+    void start() {
+        running = true;
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    /** Read sizes of given pages before the others, replaces the previous request */
+    synchronized void requestPages(int fromPage, int toPage) {
+        requestedFrom = fromPage;
+        requestedTo = toPage;
+    }
+
+    @Override
+    public void run() {
+        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+        int pagesCount = pdfFile.getPagesCount();
+        int nextPage = pdfFile.getLayoutPagesCount();
+        int unnotifiedPages = 0;
+        while (running && nextPage < pagesCount) {
+            int fromPage, toPage;
+            boolean requested;
+            synchronized (this) {
+                requested = requestedFrom >= 0;
+                fromPage = requestedFrom;
+                toPage = requestedTo;
+                requestedFrom = -1;
+            }
+            if (!requested) {
+                fromPage = nextPage;
+                toPage = Math.min(pagesCount, nextPage + READ_CHUNK_PAGES);
+                nextPage = toPage;
+            }
+
+            int read = pdfFile.readPageSizes(fromPage, toPage);
+            if (read < 0) {
+                return;
+            }
+            unnotifiedPages += read;
+            // requested pages are visible, so they are handed over right away
+            if (unnotifiedPages > 0 && (requested || unnotifiedPages >= Constants.LAZY_LAYOUT_BATCH_PAGES
+                    || nextPage == pagesCount)) {
+                pdfView.post(notifyRead);
+                unnotifiedPages = 0;
+            }
+        }
+    }
+}
@@ -19,28 +19,59 @@ import android.graphics.RectF;
 
 import com.github.barteksc.pdfviewer.util.Constants;
 import com.github.barteksc.pdfviewer.util.MathUtils;
+import com.github.barteksc.pdfviewer.util.TileKey;
+import com.github.barteksc.pdfviewer.util.TilePyramid;
 import com.github.barteksc.pdfviewer.util.Util;
-import com.shockwave.pdfium.util.SizeF;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
 
-import static com.github.barteksc.pdfviewer.util.Constants.Cache.CACHE_SIZE;
 import static com.github.barteksc.pdfviewer.util.Constants.PRELOAD_OFFSET;
 
 class PagesLoader {
 
+    /** Margin of drafts around the viewport, relative to the viewport size */
+    private static final float DRAFT_MARGIN = 0.25f;
+
     private PDFView pdfView;
     private int cacheOrder;
-    private float xOffset;
-    private float yOffset;
+    private double xOffset;
+    private double yOffset;
     private float pageRelativePartWidth;
     private float pageRelativePartHeight;
     private float partRenderWidth;
     private float partRenderHeight;
+    /** {@link TilePyramid} level of the current zoom, at which page parts are rendered */
+    private int partLevel;
+    /**
+     * Position of the viewport in document coordinates at the current zoom, positions of pages and parts
+     * are relative to it, so they are precise as float also far from the start of long documents
+     */
+    private double viewportX;
+    private double viewportY;
+    /** Position of the page which is being loaded, relative to the viewport */
+    private float pageLeft;
+    private float pageTop;
+    private float pageWidth;
+    private float pageHeight;
+    /** Visible part of the document, without preload offset, relative to the viewport */
+    private final RectF viewport = new RectF();
+    /** True if a visible part of the page which is being loaded has to be rendered */
+    private boolean pageNeedsDraft;
+
+    /** True if parts are rendered in reduced quality, because the view is in motion */
+    private boolean reducedQuality;
     private final RectF thumbnailRect = new RectF(0, 0, 1, 1);
     private final int preloadOffset;
 
+    /** Render ranges of pages, reused between calls, only the first {@link #renderRangeCount} are valid */
+    private final List<RenderRange> renderRanges = new ArrayList<>();
+    private int renderRangeCount;
+
+    /** Temporary bounds, copied by {@link RenderingHandler} when a new task is queued */
+    private final RectF pageRelativeBounds = new RectF();
+    private final RectF visibleBounds = new RectF();
+
     private class Holder {
         int row;
         int col;
@@ -81,12 +112,18 @@ class PagesLoader {
     private class GridSize {
         int rows;
         int cols;
+        /** Page relative width of a column */
+        float colWidth;
+        /** Page relative height of a row */
+        float rowHeight;
 
         @Override
         public String toString() {
             return "GridSize{" +
                     "rows=" + rows +
                     ", cols=" + cols +
+                    ", colWidth=" + colWidth +
+                    ", rowHeight=" + rowHeight +
                     '}';
         }
     }
@@ -97,48 +134,55 @@ class PagesLoader {
     }
 
     private void getPageColsRows(GridSize grid, int pageIndex) {
-        SizeF size = pdfView.pdfFile.getPageSize(pageIndex);
-        float ratioX = 1f / size.getWidth();
-        float ratioY = 1f / size.getHeight();
-        final float partHeight = (Constants.PART_SIZE * ratioY) / pdfView.getZoom();
-        final float partWidth = (Constants.PART_SIZE * ratioX) / pdfView.getZoom();
-        grid.rows = MathUtils.ceil(1f / partHeight);
-        grid.cols = MathUtils.ceil(1f / partWidth);
+        // page is rendered at the scale of the level, not the current zoom, so the grid
+        // depends only on the level and the last column and row may be cut
+        float scale = TilePyramid.getScale(partLevel);
+        float levelWidth = pdfView.pdfFile.getPageWidth(pageIndex, scale);
+        float levelHeight = pdfView.pdfFile.getPageHeight(pageIndex, scale);
+        grid.colWidth = Constants.PART_SIZE / levelWidth;
+        grid.rowHeight = Constants.PART_SIZE / levelHeight;
+        grid.cols = MathUtils.ceil(levelWidth / Constants.PART_SIZE);
+        grid.rows = MathUtils.ceil(levelHeight / Constants.PART_SIZE);
     }
 
     private void calculatePartSize(GridSize grid) {
-        pageRelativePartWidth = 1f / (float) grid.cols;
-        pageRelativePartHeight = 1f / (float) grid.rows;
+        pageRelativePartWidth = grid.colWidth;
+        pageRelativePartHeight = grid.rowHeight;
         partRenderWidth = Constants.PART_SIZE / pageRelativePartWidth;
         partRenderHeight = Constants.PART_SIZE / pageRelativePartHeight;
     }
 
 
     /**
-     * calculate the render range of each page
+     * calculate the render range of each page into {@link #renderRanges}
      */
-    private List<RenderRange> getRenderRangeList(float firstXOffset, float firstYOffset, float lastXOffset, float lastYOffset) {
+    private void calculateRenderRanges(double firstXOffset, double firstYOffset, double lastXOffset, double lastYOffset) {
 
-        float fixedFirstXOffset = -MathUtils.max(firstXOffset, 0);
-        float fixedFirstYOffset = -MathUtils.max(firstYOffset, 0);
+        double fixedFirstXOffset = -MathUtils.max(firstXOffset, 0);
+        double fixedFirstYOffset = -MathUtils.max(firstYOffset, 0);
 
-        float fixedLastXOffset = -MathUtils.max(lastXOffset, 0);
-        float fixedLastYOffset = -MathUtils.max(lastYOffset, 0);
+        double fixedLastXOffset = -MathUtils.max(lastXOffset, 0);
+        double fixedLastYOffset = -MathUtils.max(lastYOffset, 0);
 
-        float offsetFirst = pdfView.isSwipeVertical() ? fixedFirstYOffset : fixedFirstXOffset;
-        float offsetLast = pdfView.isSwipeVertical() ? fixedLastYOffset : fixedLastXOffset;
+        double offsetFirst = pdfView.isSwipeVertical() ? fixedFirstYOffset : fixedFirstXOffset;
+        double offsetLast = pdfView.isSwipeVertical() ? fixedLastYOffset : fixedLastXOffset;
 
         int firstPage = pdfView.pdfFile.getPageAtOffset(offsetFirst, pdfView.getZoom());
         int lastPage = pdfView.pdfFile.getPageAtOffset(offsetLast, pdfView.getZoom());
         int pageCount = lastPage - firstPage + 1;
+        float zoom = pdfView.getZoom();
 
-        List<RenderRange> renderRanges = new LinkedList<>();
-
+        renderRangeCount = 0;
         for (int page = firstPage; page <= lastPage; page++) {
-            RenderRange range = new RenderRange();
+            if (renderRangeCount == renderRanges.size()) {
+                renderRanges.add(new RenderRange());
+            }
+            RenderRange range = renderRanges.get(renderRangeCount++);
             range.page = page;
+            float scaledPageWidth = pdfView.pdfFile.getPageWidth(page, zoom);
+            float scaledPageHeight = pdfView.pdfFile.getPageHeight(page, zoom);
 
-            float pageFirstXOffset, pageFirstYOffset, pageLastXOffset, pageLastYOffset;
+            double pageFirstXOffset, pageFirstYOffset, pageLastXOffset, pageLastYOffset;
             if (page == firstPage) {
                 pageFirstXOffset = fixedFirstXOffset;
                 pageFirstYOffset = fixedFirstYOffset;
@@ -146,18 +190,17 @@ class PagesLoader {
                     pageLastXOffset = fixedLastXOffset;
                     pageLastYOffset = fixedLastYOffset;
                 } else {
-                    float pageOffset = pdfView.pdfFile.getPageOffset(page, pdfView.getZoom());
-                    SizeF pageSize = pdfView.pdfFile.getScaledPageSize(page, pdfView.getZoom());
+                    double pageOffset = pdfView.pdfFile.getPageOffset(page, zoom);
                     if (pdfView.isSwipeVertical()) {
                         pageLastXOffset = fixedLastXOffset;
-                        pageLastYOffset = pageOffset + pageSize.getHeight();
+                        pageLastYOffset = pageOffset + scaledPageHeight;
                     } else {
                         pageLastYOffset = fixedLastYOffset;
-                        pageLastXOffset = pageOffset + pageSize.getWidth();
+                        pageLastXOffset = pageOffset + scaledPageWidth;
                     }
                 }
             } else if (page == lastPage) {
-                float pageOffset = pdfView.pdfFile.getPageOffset(page, pdfView.getZoom());
+                double pageOffset = pdfView.pdfFile.getPageOffset(page, zoom);
 
                 if (pdfView.isSwipeVertical()) {
                     pageFirstXOffset = fixedFirstXOffset;
@@ -171,27 +214,25 @@ class PagesLoader {
                 pageLastYOffset = fixedLastYOffset;
 
             } else {
-                float pageOffset = pdfView.pdfFile.getPageOffset(page, pdfView.getZoom());
-                SizeF pageSize = pdfView.pdfFile.getScaledPageSize(page, pdfView.getZoom());
+                double pageOffset = pdfView.pdfFile.getPageOffset(page, zoom);
                 if (pdfView.isSwipeVertical()) {
                     pageFirstXOffset = fixedFirstXOffset;
                     pageFirstYOffset = pageOffset;
 
                     pageLastXOffset = fixedLastXOffset;
-                    pageLastYOffset = pageOffset + pageSize.getHeight();
+                    pageLastYOffset = pageOffset + scaledPageHeight;
                 } else {
                     pageFirstXOffset = pageOffset;
                     pageFirstYOffset = fixedFirstYOffset;
 
-                    pageLastXOffset = pageOffset + pageSize.getWidth();
+                    pageLastXOffset = pageOffset + scaledPageWidth;
                     pageLastYOffset = fixedLastYOffset;
                 }
             }
 
             getPageColsRows(range.gridSize, range.page); // get the page's grid size that rows and cols
-            SizeF scaledPageSize = pdfView.pdfFile.getScaledPageSize(range.page, pdfView.getZoom());
-            float rowHeight = scaledPageSize.getHeight() / range.gridSize.rows;
-            float colWidth = scaledPageSize.getWidth() / range.gridSize.cols;
+            float rowHeight = scaledPageHeight * range.gridSize.rowHeight;
+            float colWidth = scaledPageWidth * range.gridSize.colWidth;
 
 
             // get the page offset int the whole file
@@ -201,53 +242,98 @@ class PagesLoader {
             // |            |           |            |
             // |            |           |            |
             // ---------------------------------------
-            float secondaryOffset = pdfView.pdfFile.getSecondaryPageOffset(page, pdfView.getZoom());
+            float secondaryOffset = pdfView.pdfFile.getSecondaryPageOffset(page, zoom);
+            double pageOffset = pdfView.pdfFile.getPageOffset(range.page, zoom);
 
-            // calculate the row,col of the point in the leftTop and rightBottom
+            // calculate the row,col of the point in the leftTop and rightBottom,
+            // distances within the page are small enough to be computed as float
             if (pdfView.isSwipeVertical()) {
-                range.leftTop.row = MathUtils.floor(Math.abs(pageFirstYOffset - pdfView.pdfFile.getPageOffset(range.page, pdfView.getZoom())) / rowHeight);
-                range.leftTop.col = MathUtils.floor(MathUtils.min(pageFirstXOffset - secondaryOffset, 0) / colWidth);
+                range.leftTop.row = MathUtils.floor((float) Math.abs(pageFirstYOffset - pageOffset) / rowHeight);
+                range.leftTop.col = MathUtils.floor((float) MathUtils.min(pageFirstXOffset - secondaryOffset, 0) / colWidth);
 
-                range.rightBottom.row = MathUtils.ceil(Math.abs(pageLastYOffset - pdfView.pdfFile.getPageOffset(range.page, pdfView.getZoom())) / rowHeight);
-                range.rightBottom.col = MathUtils.floor(MathUtils.min(pageLastXOffset - secondaryOffset, 0) / colWidth);
+                range.rightBottom.row = MathUtils.ceil((float) Math.abs(pageLastYOffset - pageOffset) / rowHeight);
+                range.rightBottom.col = MathUtils.floor((float) MathUtils.min(pageLastXOffset - secondaryOffset, 0) / colWidth);
             } else {
-                range.leftTop.col = MathUtils.floor(Math.abs(pageFirstXOffset - pdfView.pdfFile.getPageOffset(range.page, pdfView.getZoom())) / colWidth);
-                range.leftTop.row = MathUtils.floor(MathUtils.min(pageFirstYOffset - secondaryOffset, 0) / rowHeight);
+                range.leftTop.col = MathUtils.floor((float) Math.abs(pageFirstXOffset - pageOffset) / colWidth);
+                range.leftTop.row = MathUtils.floor((float) MathUtils.min(pageFirstYOffset - secondaryOffset, 0) / rowHeight);
 
-                range.rightBottom.col = MathUtils.floor(Math.abs(pageLastXOffset - pdfView.pdfFile.getPageOffset(range.page, pdfView.getZoom())) / colWidth);
-                range.rightBottom.row = MathUtils.floor(MathUtils.min(pageLastYOffset - secondaryOffset, 0) / rowHeight);
+                range.rightBottom.col = MathUtils.floor((float) Math.abs(pageLastXOffset - pageOffset) / colWidth);
+                range.rightBottom.row = MathUtils.floor((float) MathUtils.min(pageLastYOffset - secondaryOffset, 0) / rowHeight);
             }
-
-            renderRanges.add(range);
         }
-
-        return renderRanges;
     }
 
     private void loadVisible() {
         int parts = 0;
         float scaledPreloadOffset = preloadOffset;
-        float firstXOffset = -xOffset + scaledPreloadOffset;
-        float lastXOffset = -xOffset - pdfView.getWidth() - scaledPreloadOffset;
-        float firstYOffset = -yOffset + scaledPreloadOffset;
-        float lastYOffset = -yOffset - pdfView.getHeight() - scaledPreloadOffset;
-
-        List<RenderRange> rangeList = getRenderRangeList(firstXOffset, firstYOffset, lastXOffset, lastYOffset);
-
-        for (RenderRange range : rangeList) {
-            loadThumbnail(range.page);
+        double firstXOffset = -xOffset + scaledPreloadOffset;
+        double lastXOffset = -xOffset - pdfView.getWidth() - scaledPreloadOffset;
+        double firstYOffset = -yOffset + scaledPreloadOffset;
+        double lastYOffset = -yOffset - pdfView.getHeight() - scaledPreloadOffset;
+
+        calculateRenderRanges(firstXOffset, firstYOffset, lastXOffset, lastYOffset);
+
+        int firstEstimatedPage = -1, lastEstimatedPage = -1;
+        for (int i = 0; i < renderRangeCount; i++) {
+            int page = renderRanges.get(i).page;
+            if (!pdfView.pdfFile.isPageSizeEstimated(page)) {
+                loadThumbnail(page);
+            } else {
+                if (firstEstimatedPage < 0) {
+                    firstEstimatedPage = page;
+                }
+                lastEstimatedPage = page;
+            }
         }
+        if (firstEstimatedPage >= 0) {
+            // visible pages are measured before the rest of the document
+            pdfView.requestPageSizes(firstEstimatedPage, lastEstimatedPage + 1);
+        }
+
+        // do not request more parts than the cache is able to hold
+        int bytesPerPart = (int) (Constants.PART_SIZE * Constants.PART_SIZE) * (pdfView.isBestQuality() ? 4 : 2);
+        int maxParts = pdfView.cacheManager.getPartsCapacity(bytesPerPart);
 
-        for (RenderRange range : rangeList) {
+        for (int i = 0; i < renderRangeCount; i++) {
+            RenderRange range = renderRanges.get(i);
+            if (pdfView.pdfFile.isPageSizeEstimated(range.page)) {
+                // rendered when real size of the page is known
+                continue;
+            }
             calculatePartSize(range.gridSize);
-            parts += loadPage(range.page, range.leftTop.row, range.rightBottom.row, range.leftTop.col, range.rightBottom.col, CACHE_SIZE - parts);
-            if (parts >= CACHE_SIZE) {
+            setPagePosition(range.page);
+            pageNeedsDraft = false;
+            parts += loadPage(range.page, range.leftTop.row, range.rightBottom.row, range.leftTop.col, range.rightBottom.col, maxParts - parts);
+            if (pageNeedsDraft && pdfView.isProgressiveRendering()) {
+                loadDraft(range.page);
+            }
+            if (parts >= maxParts) {
                 break;
             }
         }
 
     }
 
+    private void setPagePosition(int page) {
+        float zoom = pdfView.getZoom();
+        if (pdfView.isSwipeVertical()) {
+            pageLeft = (float) (pdfView.pdfFile.getSecondaryPageOffset(page, zoom) - viewportX);
+            pageTop = (float) (pdfView.pdfFile.getPageOffset(page, zoom) - viewportY);
+        } else {
+            pageLeft = (float) (pdfView.pdfFile.getPageOffset(page, zoom) - viewportX);
+            pageTop = (float) (pdfView.pdfFile.getSecondaryPageOffset(page, zoom) - viewportY);
+        }
+        pageWidth = pdfView.pdfFile.getPageWidth(page, zoom);
+        pageHeight = pdfView.pdfFile.getPageHeight(page, zoom);
+    }
+
+    /** Distance of the point relative to the viewport from the center of the viewport */
+    private float getDistanceFromCenter(float x, float y) {
+        float dx = x - viewport.centerX();
+        float dy = y - viewport.centerY();
+        return (float) Math.sqrt(dx * dx + dy * dy);
+    }
+
     private int loadPage(int page, int firstRow, int lastRow, int firstCol, int lastCol,
                          int nbOfPartsLoadable) {
         int loaded = 0;
@@ -281,13 +367,24 @@ class PagesLoader {
         }
         renderWidth *= relWidth;
         renderHeight *= relHeight;
-        RectF pageRelativeBounds = new RectF(relX, relY, relX + relWidth, relY + relHeight);
+        pageRelativeBounds.set(relX, relY, relX + relWidth, relY + relHeight);
 
         if (renderWidth > 0 && renderHeight > 0) {
-            if (!pdfView.cacheManager.upPartIfContained(page, pageRelativeBounds, cacheOrder)) {
-                pdfView.renderingHandler.addRenderingTask(page, renderWidth, renderHeight,
-                        pageRelativeBounds, false, cacheOrder, pdfView.isBestQuality(),
-                        pdfView.isAnnotationRendering());
+            long key = TileKey.pack(page, partLevel, row, col);
+            if (!pdfView.cacheManager.upPartIfContained(key, cacheOrder, reducedQuality)) {
+                float left = pageLeft + pageRelativeBounds.left * pageWidth;
+                float top = pageTop + pageRelativeBounds.top * pageHeight;
+                float right = pageLeft + pageRelativeBounds.right * pageWidth;
+                float bottom = pageTop + pageRelativeBounds.bottom * pageHeight;
+                int priority = RenderingHandler.PRIORITY_PRELOAD;
+                if (viewport.intersects(left, top, right, bottom)) {
+                    priority = RenderingHandler.PRIORITY_VISIBLE;
+                    pageNeedsDraft = true;
+                }
+                pdfView.renderingHandler.addRenderingTask(page, key, renderWidth, renderHeight,
+                        pageRelativeBounds, false, cacheOrder, pdfView.isBestQuality() && !reducedQuality,
+                        pdfView.isAnnotationRendering() && !reducedQuality, reducedQuality, priority,
+                        getDistanceFromCenter((left + right) / 2, (top + bottom) / 2));
             }
 
             cacheOrder++;
@@ -296,21 +393,62 @@ class PagesLoader {
         return false;
     }
 
+    /**
+     * Request low resolution draft of the visible region of the page, unless it is already cached.
+     * Draft covers also a margin around the viewport, so it is not requested again on every small scroll.
+     */
+    private void loadDraft(int page) {
+        toPageRelativeBounds(visibleBounds, viewport.left, viewport.top, viewport.right, viewport.bottom);
+        if (pdfView.cacheManager.containsDraft(page, partLevel, visibleBounds)) {
+            return;
+        }
+        float marginX = viewport.width() * DRAFT_MARGIN;
+        float marginY = viewport.height() * DRAFT_MARGIN;
+        toPageRelativeBounds(pageRelativeBounds, viewport.left - marginX, viewport.top - marginY,
+                viewport.right + marginX, viewport.bottom + marginY);
+        float draftWidth = pageRelativeBounds.width() * pageWidth * Constants.DRAFT_RATIO;
+        float draftHeight = pageRelativeBounds.height() * pageHeight * Constants.DRAFT_RATIO;
+        if (draftWidth < 1 || draftHeight < 1) {
+            return;
+        }
+        pdfView.renderingHandler.addRenderingTask(page, TileKey.draft(page, partLevel), draftWidth, draftHeight,
+                pageRelativeBounds, false, 0, false, false, false,
+                RenderingHandler.PRIORITY_DRAFT, 0);
+    }
+
+    /** Convert rect relative to the viewport to bounds relative to the page which is being loaded */
+    private void toPageRelativeBounds(RectF out, float left, float top, float right, float bottom) {
+        out.set(MathUtils.limit((left - pageLeft) / pageWidth, 0, 1),
+                MathUtils.limit((top - pageTop) / pageHeight, 0, 1),
+                MathUtils.limit((right - pageLeft) / pageWidth, 0, 1),
+                MathUtils.limit((bottom - pageTop) / pageHeight, 0, 1));
+    }
+
     private void loadThumbnail(int page) {
-        SizeF pageSize = pdfView.pdfFile.getPageSize(page);
-        float thumbnailWidth = pageSize.getWidth() * Constants.THUMBNAIL_RATIO;
-        float thumbnailHeight = pageSize.getHeight() * Constants.THUMBNAIL_RATIO;
-        if (!pdfView.cacheManager.containsThumbnail(page, thumbnailRect)) {
-            pdfView.renderingHandler.addRenderingTask(page,
+        float thumbnailWidth = pdfView.pdfFile.getPageWidth(page, Constants.THUMBNAIL_RATIO);
+        float thumbnailHeight = pdfView.pdfFile.getPageHeight(page, Constants.THUMBNAIL_RATIO);
+        if (!pdfView.cacheManager.containsThumbnail(page)) {
+            setPagePosition(page);
+            pdfView.renderingHandler.addRenderingTask(page, TileKey.thumbnail(page),
                     thumbnailWidth, thumbnailHeight, thumbnailRect,
-                    true, 0, pdfView.isBestQuality(), pdfView.isAnnotationRendering());
+                    true, 0, pdfView.isBestQuality(), pdfView.isAnnotationRendering(), false,
+                    RenderingHandler.PRIORITY_THUMBNAIL,
+                    getDistanceFromCenter(pageLeft + pageWidth / 2, pageTop + pageHeight / 2));
         }
     }
 
     void loadPages() {
         cacheOrder = 1;
-        xOffset = -MathUtils.max(pdfView.getCurrentXOffset(), 0);
-        yOffset = -MathUtils.max(pdfView.getCurrentYOffset(), 0);
+        partLevel = TilePyramid.getLevel(pdfView.getZoom());
+        // reduced quality differs from the full one only if best quality or annotations are enabled,
+        // otherwise parts rendered during motion would be rendered again for nothing
+        reducedQuality = pdfView.isMotionQualityRendering() && pdfView.isInMotion()
+                && (pdfView.isBestQuality() || pdfView.isAnnotationRendering());
+        xOffset = -MathUtils.max(pdfView.getExactXOffset(), 0);
+        yOffset = -MathUtils.max(pdfView.getExactYOffset(), 0);
+        viewportX = -pdfView.getExactXOffset();
+        viewportY = -pdfView.getExactYOffset();
+        viewport.set(0, 0, pdfView.getWidth(), pdfView.getHeight());
 
         loadVisible();
     }
@@ -20,30 +20,56 @@ import android.graphics.Rect;
 import android.graphics.RectF;
 import android.util.SparseBooleanArray;
 
+import com.github.barteksc.pdfviewer.backend.DocumentEngine;
 import com.github.barteksc.pdfviewer.calculator.PageSizeCalculatorHandler;
 import com.github.barteksc.pdfviewer.exception.PageRenderingException;
+import com.github.barteksc.pdfviewer.util.Constants;
 import com.github.barteksc.pdfviewer.util.FitPolicy;
 import com.github.barteksc.pdfviewer.util.PageSizeCalculator;
 import com.shockwave.pdfium.PdfDocument;
-import com.shockwave.pdfium.PdfiumCore;
 import com.shockwave.pdfium.util.Size;
 import com.shockwave.pdfium.util.SizeF;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 class PdfFile {
 
-    private static final Object lock = new Object();
-    private PdfDocument pdfDocument;
-    private PdfiumCore pdfiumCore;
+    private static final SizeF EMPTY_SIZE = new SizeF(0, 0);
+
+    /** Engine of the first handle, used for everything but rendering */
+    private DocumentEngine documentEngine;
+    /** True after {@link #dispose()}, page sizes are not read anymore */
+    private volatile boolean disposed = false;
+    /** Handles of the same document, each of them can be used by a different rendering thread */
+    private final List<DocumentHandle> handles = new ArrayList<>();
     private int pagesCount = 0;
-    /** Original page sizes */
-    private List<Size> originalPageSizes = new ArrayList<>();
-    /** Scaled page sizes */
-    private List<SizeF> pageSizes = new ArrayList<>();
-    /** Opened pages with indicator whether opening was successful */
-    private SparseBooleanArray openedPages = new SparseBooleanArray();
+    /** Original page widths */
+    private int[] originalPageWidths = new int[0];
+    /** Original page heights */
+    private int[] originalPageHeights = new int[0];
+    /** Scaled page widths */
+    private float[] pageWidths = new float[0];
+    /** Scaled page heights */
+    private float[] pageHeights = new float[0];
+    /** Scaled page sizes returned by {@link #getPageSize(int)}, created on demand and cleared after recalculation */
+    private SizeF[] pageSizes = new SizeF[0];
+    /** Number of first pages with real sizes in the layout, sizes of the other pages may be estimated */
+    private int layoutPagesCount = 0;
+    /** True for pages with estimated size, null if layout is complete */
+    private boolean[] estimatedPages;
+    /**
+     * Real page sizes read in the background, waiting to be applied to the layout, null if layout is complete.
+     * Guarded by {@link #readLock}, like {@link #readPages} and {@link #readPagesEnd}.
+     */
+    private int[] readPageWidths, readPageHeights;
+    /** True for pages whose real size was read in the background */
+    private boolean[] readPages;
+    /** All pages read in the background are before this one */
+    private int readPagesEnd = 0;
+    private final Object readLock = new Object();
     /** Page with maximum width */
     private Size originalMaxWidthPageSize = new Size(0, 0);
     /** Page with maximum height */
@@ -58,12 +84,17 @@ class PdfFile {
     private int spacingPx;
     /** Calculate spacing automatically so each page fits on it's own in the center of the view */
     private boolean autoSpacing;
-    /** Calculated offsets for pages */
-    private List<Float> pageOffsets = new ArrayList<>();
+    /**
+     * Calculated offsets for pages. Offsets and document length are kept in double precision,
+     * float is not precise enough at the end of documents which are millions of pixels long.
+     */
+    private double[] pageOffsets = new double[0];
     /** Calculated auto spacing for pages */
-    private List<Float> pageSpacing = new ArrayList<>();
+    private float[] pageSpacing = new float[0];
+    /** Start of each page including half of its spacing, at zoom 1, in ascending order */
+    private double[] pageBoundaries = new double[0];
     /** Calculated document length (width or height, depending on swipe mode) */
-    private float documentLength = 0;
+    private double documentLength = 0;
     private final FitPolicy pageFitPolicy;
     /**
      * True if every page should fit separately according to the FitPolicy,
@@ -78,10 +109,19 @@ class PdfFile {
     /** Handles page size calculations to fit pages into view */
     private final PageSizeCalculatorHandler calculatorHandler;
 
-    PdfFile(PdfiumCore pdfiumCore, PdfDocument pdfDocument, FitPolicy pageFitPolicy, Size viewSize, int[] originalUserPages,
-            boolean isVertical, int spacing, boolean autoSpacing, boolean fitEachPage, PageSizeCalculatorHandler calculatorHandler) {
-        this.pdfiumCore = pdfiumCore;
-        this.pdfDocument = pdfDocument;
+    /**
+     * @param documentEngines engines of the same document, there is one rendering thread for each of them
+     * @param lazyLayout      read sizes of only a few first pages and of the first shown page and its neighbours,
+     *                        estimate the others, real sizes are applied later with {@link #applyPageSizes(Size)}
+     * @param firstPage       page which is shown first
+     */
+    PdfFile(List<DocumentEngine> documentEngines, FitPolicy pageFitPolicy, Size viewSize, int[] originalUserPages,
+            boolean isVertical, int spacing, boolean autoSpacing, boolean fitEachPage, boolean lazyLayout,
+            int firstPage, PageSizeCalculatorHandler calculatorHandler) {
+        for (DocumentEngine engine : documentEngines) {
+            handles.add(new DocumentHandle(engine));
+        }
+        this.documentEngine = documentEngines.get(0);
         this.pageFitPolicy = pageFitPolicy;
         this.originalUserPages = originalUserPages;
         this.isVertical = isVertical;
@@ -89,45 +129,187 @@ class PdfFile {
         this.autoSpacing = autoSpacing;
         this.fitEachPage = fitEachPage;
         this.calculatorHandler = calculatorHandler;
-        setup(viewSize);
+        setup(viewSize, lazyLayout, firstPage);
     }
 
-    private void setup(Size viewSize) {
+    private void setup(Size viewSize, boolean lazyLayout, int firstPage) {
         if (originalUserPages != null) {
             pagesCount = originalUserPages.length;
         } else {
-            pagesCount = pdfiumCore.getPageCount(pdfDocument);
+            pagesCount = documentEngine.getPageCount();
         }
 
-        for (int i = 0; i < pagesCount; i++) {
-            Size pageSize = pdfiumCore.getPageSize(pdfDocument, documentPage(i));
-            if (pageSize.getWidth() > originalMaxWidthPageSize.getWidth()) {
-                originalMaxWidthPageSize = pageSize;
+        originalPageWidths = new int[pagesCount];
+        originalPageHeights = new int[pagesCount];
+        pageWidths = new float[pagesCount];
+        pageHeights = new float[pagesCount];
+        pageSizes = new SizeF[pagesCount];
+        pageOffsets = new double[pagesCount];
+        pageSpacing = new float[pagesCount];
+        pageBoundaries = new double[pagesCount];
+
+        layoutPagesCount = lazyLayout ? Math.min(pagesCount, Constants.LAZY_LAYOUT_SAMPLE_PAGES) : pagesCount;
+        for (int i = 0; i < layoutPagesCount; i++) {
+            Size pageSize = documentEngine.getPageSize(documentPage(i));
+            setOriginalPageSize(i, pageSize.getWidth(), pageSize.getHeight());
+        }
+
+        if (layoutPagesCount < pagesCount) {
+            estimatedPages = new boolean[pagesCount];
+            Arrays.fill(estimatedPages, layoutPagesCount, pagesCount, true);
+
+            // the first shown page and its neighbours are measured right away, so they can be rendered first
+            firstPage = determineValidPageNumberFrom(firstPage);
+            for (int i = Math.max(layoutPagesCount, firstPage - 1); i <= Math.min(pagesCount - 1, firstPage + 1); i++) {
+                Size pageSize = documentEngine.getPageSize(documentPage(i));
+                setOriginalPageSize(i, pageSize.getWidth(), pageSize.getHeight());
+                estimatedPages[i] = false;
             }
-            if (pageSize.getHeight() > originalMaxHeightPageSize.getHeight()) {
-                originalMaxHeightPageSize = pageSize;
+
+            // assume the size of the largest measured page, estimated pages do not change the maximum,
+            // and real pages are more likely to shrink the layout than to push the following pages
+            Size largestPage = isVertical ? originalMaxWidthPageSize : originalMaxHeightPageSize;
+            for (int i = 0; i < pagesCount; i++) {
+                if (estimatedPages[i]) {
+                    originalPageWidths[i] = largestPage.getWidth();
+                    originalPageHeights[i] = largestPage.getHeight();
+                }
             }
-            originalPageSizes.add(pageSize);
+            readPageWidths = new int[pagesCount];
+            readPageHeights = new int[pagesCount];
+            readPages = new boolean[pagesCount];
         }
 
         recalculatePageSizes(viewSize);
     }
 
+    private void setOriginalPageSize(int pageIndex, int width, int height) {
+        if (width > originalMaxWidthPageSize.getWidth()) {
+            originalMaxWidthPageSize = new Size(width, height);
+        }
+        if (height > originalMaxHeightPageSize.getHeight()) {
+            originalMaxHeightPageSize = new Size(width, height);
+        }
+        originalPageWidths[pageIndex] = width;
+        originalPageHeights[pageIndex] = height;
+    }
+
+    /** True if sizes of some pages are only estimated */
+    public boolean isLayoutEstimated() {
+        return layoutPagesCount < pagesCount;
+    }
+
+    /** True if the page has estimated size and should not be rendered yet */
+    public boolean isPageSizeEstimated(int pageIndex) {
+        boolean[] estimated = estimatedPages;
+        return estimated != null && pageIndex >= 0 && pageIndex < estimated.length && estimated[pageIndex];
+    }
+
+    /** Number of first pages with real sizes in the layout, later pages may also have real sizes */
+    public int getLayoutPagesCount() {
+        return layoutPagesCount;
+    }
+
+    /**
+     * Read real sizes of pages with estimated size, which were not read yet, called from a background thread.
+     * Sizes are applied to the layout on the main thread by {@link #applyPageSizes(Size)}.
+     *
+     * @return number of pages read, -1 if the document was closed
+     */
+    int readPageSizes(int fromPage, int toPage) {
+        DocumentHandle handle = handles.get(0);
+        int read = 0;
+        for (int i = fromPage; i < toPage; i++) {
+            synchronized (readLock) {
+                if (readPages == null) {
+                    // layout is complete
+                    return read;
+                }
+                if (readPages[i]) {
+                    continue;
+                }
+            }
+            Size pageSize;
+            // lock for each page, so rendering on the same handle is not blocked for the whole batch
+            synchronized (handle) {
+                if (handle.closed || disposed) {
+                    return -1;
+                }
+                pageSize = handle.engine.getPageSize(documentPage(i));
+            }
+            synchronized (readLock) {
+                if (readPages == null) {
+                    return read;
+                }
+                readPageWidths[i] = pageSize.getWidth();
+                readPageHeights[i] = pageSize.getHeight();
+                readPages[i] = true;
+                readPagesEnd = Math.max(readPagesEnd, i + 1);
+            }
+            read++;
+        }
+        return read;
+    }
+
+    /**
+     * Replace estimated sizes of pages read by {@link #readPageSizes(int, int)} with real ones
+     * and recalculate page sizes, offsets and document length if any of them differs
+     *
+     * @param viewSize current size of the view
+     * @return true if the layout changed
+     */
+    public boolean applyPageSizes(Size viewSize) {
+        boolean changed = false;
+        synchronized (readLock) {
+            if (readPages == null) {
+                return false;
+            }
+            for (int i = layoutPagesCount; i < readPagesEnd; i++) {
+                if (!estimatedPages[i] || !readPages[i]) {
+                    continue;
+                }
+                int width = readPageWidths[i];
+                int height = readPageHeights[i];
+                if (width != originalPageWidths[i] || height != originalPageHeights[i]) {
+                    setOriginalPageSize(i, width, height);
+                    changed = true;
+                }
+                estimatedPages[i] = false;
+            }
+            while (layoutPagesCount < pagesCount && !estimatedPages[layoutPagesCount]) {
+                layoutPagesCount++;
+            }
+            if (layoutPagesCount == pagesCount) {
+                estimatedPages = null;
+                readPageWidths = null;
+                readPageHeights = null;
+                readPages = null;
+            }
+        }
+        if (changed) {
+            recalculatePageSizes(viewSize);
+        }
+        return changed;
+    }
+
     /**
      * Call after view size change to recalculate page sizes, offsets and document length
      *
      * @param viewSize new size of changed view
      */
     public void recalculatePageSizes(Size viewSize) {
-        pageSizes.clear();
         PageSizeCalculator calculator = new PageSizeCalculator(pageFitPolicy, originalMaxWidthPageSize,
                 originalMaxHeightPageSize, viewSize, fitEachPage, calculatorHandler);
         maxWidthPageSize = calculator.getOptimalMaxWidthPageSize();
         maxHeightPageSize = calculator.getOptimalMaxHeightPageSize();
 
-        for (Size size : originalPageSizes) {
-            pageSizes.add(calculator.calculate(size));
+        float[] size = new float[2];
+        for (int i = 0; i < pagesCount; i++) {
+            calculator.calculate(originalPageWidths[i], originalPageHeights[i], size);
+            pageWidths[i] = size[0];
+            pageHeights[i] = size[1];
         }
+        Arrays.fill(pageSizes, null);
         if (autoSpacing) {
             prepareAutoSpacing(viewSize);
         }
@@ -142,14 +324,34 @@ class PdfFile {
     public SizeF getPageSize(int pageIndex) {
         int docPage = documentPage(pageIndex);
         if (docPage < 0) {
-            return new SizeF(0, 0);
+            return EMPTY_SIZE;
         }
-        return pageSizes.get(pageIndex);
+        SizeF size = pageSizes[pageIndex];
+        if (size == null) {
+            size = new SizeF(pageWidths[pageIndex], pageHeights[pageIndex]);
+            pageSizes[pageIndex] = size;
+        }
+        return size;
     }
 
     public SizeF getScaledPageSize(int pageIndex, float zoom) {
-        SizeF size = getPageSize(pageIndex);
-        return new SizeF(size.getWidth() * zoom, size.getHeight() * zoom);
+        return new SizeF(getPageWidth(pageIndex, zoom), getPageHeight(pageIndex, zoom));
+    }
+
+    /** Get scaled page width without allocating, 0 for invalid page */
+    public float getPageWidth(int pageIndex, float zoom) {
+        if (documentPage(pageIndex) < 0) {
+            return 0;
+        }
+        return pageWidths[pageIndex] * zoom;
+    }
+
+    /** Get scaled page height without allocating, 0 for invalid page */
+    public float getPageHeight(int pageIndex, float zoom) {
+        if (documentPage(pageIndex) < 0) {
+            return 0;
+        }
+        return pageHeights[pageIndex] * zoom;
     }
 
     /**
@@ -170,25 +372,22 @@ class PdfFile {
     }
 
     private void prepareAutoSpacing(Size viewSize) {
-        pageSpacing.clear();
         for (int i = 0; i < getPagesCount(); i++) {
-            SizeF pageSize = pageSizes.get(i);
-            float spacing = Math.max(0, isVertical ? viewSize.getHeight() - pageSize.getHeight() :
-                    viewSize.getWidth() - pageSize.getWidth());
+            float spacing = Math.max(0, isVertical ? viewSize.getHeight() - pageHeights[i] :
+                    viewSize.getWidth() - pageWidths[i]);
             if (i < getPagesCount() - 1) {
                 spacing += spacingPx;
             }
-            pageSpacing.add(spacing);
+            pageSpacing[i] = spacing;
         }
     }
 
     private void prepareDocLen() {
-        float length = 0;
+        double length = 0;
         for (int i = 0; i < getPagesCount(); i++) {
-            SizeF pageSize = pageSizes.get(i);
-            length += isVertical ? pageSize.getHeight() : pageSize.getWidth();
+            length += isVertical ? pageHeights[i] : pageWidths[i];
             if (autoSpacing) {
-                length += pageSpacing.get(i);
+                length += pageSpacing[i];
             } else if (i < getPagesCount() - 1) {
                 length += spacingPx;
             }
@@ -197,28 +396,27 @@ class PdfFile {
     }
 
     private void preparePagesOffset() {
-        pageOffsets.clear();
-        float offset = 0;
+        double offset = 0;
         for (int i = 0; i < getPagesCount(); i++) {
-            SizeF pageSize = pageSizes.get(i);
-            float size = isVertical ? pageSize.getHeight() : pageSize.getWidth();
+            float size = isVertical ? pageHeights[i] : pageWidths[i];
             if (autoSpacing) {
-                offset += pageSpacing.get(i) / 2f;
+                offset += pageSpacing[i] / 2f;
                 if (i == 0) {
                     offset -= spacingPx / 2f;
                 } else if (i == getPagesCount() - 1) {
                     offset += spacingPx / 2f;
                 }
-                pageOffsets.add(offset);
-                offset += size + pageSpacing.get(i) / 2f;
+                pageOffsets[i] = offset;
+                offset += size + pageSpacing[i] / 2f;
             } else {
-                pageOffsets.add(offset);
+                pageOffsets[i] = offset;
                 offset += size + spacingPx;
             }
+            pageBoundaries[i] = pageOffsets[i] - getPageSpacing(i, 1) / 2f;
         }
     }
 
-    public float getDocLen(float zoom) {
+    public double getDocLen(float zoom) {
         return documentLength * zoom;
     }
 
@@ -226,62 +424,70 @@ class PdfFile {
      * Get the page's height if swiping vertical, or width if swiping horizontal.
      */
     public float getPageLength(int pageIndex, float zoom) {
-        SizeF size = getPageSize(pageIndex);
-        return (isVertical ? size.getHeight() : size.getWidth()) * zoom;
+        return isVertical ? getPageHeight(pageIndex, zoom) : getPageWidth(pageIndex, zoom);
     }
 
     public float getPageSpacing(int pageIndex, float zoom) {
-        float spacing = autoSpacing ? pageSpacing.get(pageIndex) : spacingPx;
+        float spacing = autoSpacing ? pageSpacing[pageIndex] : spacingPx;
         return spacing * zoom;
     }
 
     /** Get primary page offset, that is Y for vertical scroll and X for horizontal scroll */
-    public float getPageOffset(int pageIndex, float zoom) {
+    public double getPageOffset(int pageIndex, float zoom) {
         int docPage = documentPage(pageIndex);
         if (docPage < 0) {
             return 0;
         }
-        return pageOffsets.get(pageIndex) * zoom;
+        return pageOffsets[pageIndex] * zoom;
     }
 
     /** Get secondary page offset, that is X for vertical scroll and Y for horizontal scroll */
     public float getSecondaryPageOffset(int pageIndex, float zoom) {
-        SizeF pageSize = getPageSize(pageIndex);
         if (isVertical) {
             float maxWidth = getMaxPageWidth();
-            return zoom * (maxWidth - pageSize.getWidth()) / 2; //x
+            return zoom * (maxWidth - getPageWidth(pageIndex, 1)) / 2; //x
         } else {
             float maxHeight = getMaxPageHeight();
-            return zoom * (maxHeight - pageSize.getHeight()) / 2; //y
+            return zoom * (maxHeight - getPageHeight(pageIndex, 1)) / 2; //y
         }
     }
 
-    public int getPageAtOffset(float offset, float zoom) {
-        int currentPage = 0;
-        for (int i = 0; i < getPagesCount(); i++) {
-            float off = pageOffsets.get(i) * zoom - getPageSpacing(i, zoom) / 2f;
-            if (off >= offset) {
-                break;
+    /** Get the last page which starts before the offset, found by binary search of page boundaries */
+    public int getPageAtOffset(double offset, float zoom) {
+        double[] boundaries = pageBoundaries;
+        // find the first page which starts at or after the offset
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (boundaries[mid] * zoom >= offset) {
+                high = mid;
+            } else {
+                low = mid + 1;
             }
-            currentPage++;
         }
-        return --currentPage >= 0 ? currentPage : 0;
+        return low > 0 ? low - 1 : 0;
+    }
+
+    /** Get handles for rendering, each of them should be used by one thread at a time */
+    public List<DocumentHandle> getHandles() {
+        return Collections.unmodifiableList(handles);
     }
 
-    public boolean openPage(int pageIndex) throws PageRenderingException {
+    public boolean openPage(DocumentHandle handle, int pageIndex) throws PageRenderingException {
         int docPage = documentPage(pageIndex);
         if (docPage < 0) {
             return false;
         }
 
-        synchronized (lock) {
-            if (openedPages.indexOfKey(docPage) < 0) {
+        synchronized (handle) {
+            if (!handle.closed && handle.openedPages.indexOfKey(docPage) < 0) {
                 try {
-                    pdfiumCore.openPage(pdfDocument, docPage);
-                    openedPages.put(docPage, true);
+                    handle.engine.openPage(docPage);
+                    handle.openedPages.put(docPage, true);
                     return true;
                 } catch (Exception e) {
-                    openedPages.put(docPage, false);
+                    handle.openedPages.put(docPage, false);
                     throw new PageRenderingException(pageIndex, e);
                 }
             }
@@ -289,49 +495,77 @@ class PdfFile {
         }
     }
 
-    public boolean pageHasError(int pageIndex) {
+    public boolean pageHasError(DocumentHandle handle, int pageIndex) {
         int docPage = documentPage(pageIndex);
-        return !openedPages.get(docPage, false);
+        synchronized (handle) {
+            return !handle.openedPages.get(docPage, false);
+        }
     }
 
-    public void renderPageBitmap(Bitmap bitmap, int pageIndex, Rect bounds, boolean annotationRendering) {
+    public void renderPageBitmap(DocumentHandle handle, Bitmap bitmap, int pageIndex, Rect bounds, boolean annotationRendering) {
         int docPage = documentPage(pageIndex);
-        pdfiumCore.renderPageBitmap(pdfDocument, bitmap, docPage,
-                bounds.left, bounds.top, bounds.width(), bounds.height(), annotationRendering);
+        synchronized (handle) {
+            if (!handle.closed) {
+                handle.engine.renderPage(bitmap, docPage,
+                        bounds.left, bounds.top, bounds.width(), bounds.height(), annotationRendering);
+            }
+        }
     }
 
     public PdfDocument.Meta getMetaData() {
-        if (pdfDocument == null) {
+        if (documentEngine == null) {
             return null;
         }
-        return pdfiumCore.getDocumentMeta(pdfDocument);
+        synchronized (handles.get(0)) {
+            return documentEngine.getDocumentMeta();
+        }
     }
 
     public List<PdfDocument.Bookmark> getBookmarks() {
-        if (pdfDocument == null) {
+        if (documentEngine == null) {
             return new ArrayList<>();
         }
-        return pdfiumCore.getTableOfContents(pdfDocument);
+        synchronized (handles.get(0)) {
+            return documentEngine.getTableOfContents();
+        }
     }
 
     public List<PdfDocument.Link> getPageLinks(int pageIndex) {
         int docPage = documentPage(pageIndex);
-        return pdfiumCore.getPageLinks(pdfDocument, docPage);
+        synchronized (handles.get(0)) {
+            return documentEngine.getPageLinks(docPage);
+        }
     }
 
     public RectF mapRectToDevice(int pageIndex, int startX, int startY, int sizeX, int sizeY,
                                  RectF rect) {
         int docPage = documentPage(pageIndex);
-        return pdfiumCore.mapRectToDevice(pdfDocument, docPage, startX, startY, sizeX, sizeY, 0, rect);
+        synchronized (handles.get(0)) {
+            return documentEngine.mapRectToDevice(docPage, startX, startY, sizeX, sizeY, rect);
+        }
     }
 
+    /**
+     * Close the document. Handles are closed by the rendering threads after their current task,
+     * see {@link RenderingHandler#close()}, so no engine is closed while it is used
+     */
+    /**
+     * Release the document, its engines are closed by the rendering threads. User pages are kept,
+     * so a page size read in the background, which is not stopped yet, still resolves the right page.
+     */
     public void dispose() {
-        if (pdfiumCore != null && pdfDocument != null) {
-            pdfiumCore.closeDocument(pdfDocument);
-        }
+        disposed = true;
+        documentEngine = null;
+    }
 
-        pdfDocument = null;
-        originalUserPages = null;
+    /** Close engine of the handle, called by the thread rendering with it */
+    static void close(DocumentHandle handle) {
+        synchronized (handle) {
+            if (!handle.closed) {
+                handle.engine.close();
+                handle.closed = true;
+            }
+        }
     }
 
     /**
@@ -374,4 +608,19 @@ class PdfFile {
 
         return documentPage;
     }
+
+    /**
+     * Opened instance of the document. Pdfium is not thread safe per document,
+     * but separate instances of the same document can be rendered in parallel.
+     */
+    static class DocumentHandle {
+        private final DocumentEngine engine;
+        /** Opened pages with indicator whether opening was successful */
+        private final SparseBooleanArray openedPages = new SparseBooleanArray();
+        private boolean closed = false;
+
+        DocumentHandle(DocumentEngine engine) {
+            this.engine = engine;
+        }
+    }
 }
@@ -0,0 +1,130 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer;
+
+import java.util.Arrays;
+
+/**
+ * Binary heap of rendering tasks, the first task is the one which should be rendered next.
+ * Tasks know their position in the heap, so priority of a queued task can be changed
+ * or the task removed in logarithmic time. Not thread safe.
+ */
+class RenderQueue {
+
+    private RenderingTask[] heap = new RenderingTask[64];
+
+    private int size = 0;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void add(RenderingTask task) {
+        if (size == heap.length) {
+            heap = Arrays.copyOf(heap, size * 2);
+        }
+        heap[size] = task;
+        task.queueIndex = size;
+        siftUp(size++);
+    }
+
+    RenderingTask peek() {
+        return size > 0 ? heap[0] : null;
+    }
+
+    RenderingTask poll() {
+        if (size == 0) {
+            return null;
+        }
+        RenderingTask first = heap[0];
+        removeAt(0);
+        return first;
+    }
+
+    /** Restore order after priority of a queued task was changed */
+    void update(RenderingTask task) {
+        siftUp(task.queueIndex);
+        siftDown(task.queueIndex);
+    }
+
+    void remove(RenderingTask task) {
+        if (task.queueIndex >= 0) {
+            removeAt(task.queueIndex);
+        }
+    }
+
+    void clear() {
+        for (int i = 0; i < size; i++) {
+            heap[i].queueIndex = -1;
+            heap[i] = null;
+        }
+        size = 0;
+    }
+
+    private void removeAt(int index) {
+        heap[index].queueIndex = -1;
+        size--;
+        RenderingTask last = heap[size];
+        heap[size] = null;
+        if (index != size) {
+            set(index, last);
+            siftDown(index);
+            if (heap[index] == last) {
+                siftUp(index);
+            }
+        }
+    }
+
+    private void siftUp(int index) {
+        RenderingTask task = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!task.isBefore(heap[parent])) {
+                break;
+            }
+            set(index, heap[parent]);
+            index = parent;
+        }
+        set(index, task);
+    }
+
+    private void siftDown(int index) {
+        RenderingTask task = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].isBefore(heap[child])) {
+                child = right;
+            }
+            if (!heap[child].isBefore(task)) {
+                break;
+            }
+            set(index, heap[child]);
+            index = child;
+        }
+        set(index, task);
+    }
+
+    private void set(int index, RenderingTask task) {
+        heap[index] = task;
+        task.queueIndex = index;
+    }
+}
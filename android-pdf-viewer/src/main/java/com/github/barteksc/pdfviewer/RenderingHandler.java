@@ -1,161 +1,797 @@
-/**
- * Copyright 2016 Bartosz Schiller
- * <p/>
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * <p/>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p/>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.github.barteksc.pdfviewer;
-
-import android.graphics.Bitmap;
-import android.graphics.Color;
-import android.graphics.Matrix;
-import android.graphics.Rect;
-import android.graphics.RectF;
-import android.os.Handler;
-import android.os.Looper;
-import android.os.Message;
-import android.util.Log;
-
-import com.github.barteksc.pdfviewer.exception.PageRenderingException;
-import com.github.barteksc.pdfviewer.model.PagePart;
-
-/**
- * A {@link Handler} that will process incoming {@link RenderingTask} messages
- * and alert {@link PDFView#onBitmapRendered(PagePart)} when the portion of the
- * PDF is ready to render.
- */
-class RenderingHandler extends Handler {
-    /**
-     * {@link Message#what} kind of message this handler processes.
-     */
-    static final int MSG_RENDER_TASK = 1;
-
-    private static final String TAG = RenderingHandler.class.getName();
-
-    private PDFView pdfView;
-
-    private RectF renderBounds = new RectF();
-    private Rect roundedRenderBounds = new Rect();
-    private Matrix renderMatrix = new Matrix();
-    private boolean running = false;
-
-    RenderingHandler(Looper looper, PDFView pdfView) {
-        super(looper);
-        this.pdfView = pdfView;
-    }
-
-    void addRenderingTask(int page, float width, float height, RectF bounds, boolean thumbnail, int cacheOrder, boolean bestQuality, boolean annotationRendering) {
-        RenderingTask task = new RenderingTask(width, height, bounds, page, thumbnail, cacheOrder, bestQuality, annotationRendering);
-        Message msg = obtainMessage(MSG_RENDER_TASK, task);
-        sendMessage(msg);
-    }
-
-    @Override
-    public void handleMessage(Message message) {
-        RenderingTask task = (RenderingTask) message.obj;
-        try {
-            final PagePart part = proceed(task);
-            if (part != null) {
-                if (running) {
-                    pdfView.post(new Runnable() {
-                        @Override
-                        public void run() {
-                            pdfView.onBitmapRendered(part);
-                        }
-                    });
-                } else {
-                    part.getRenderedBitmap().recycle();
-                }
-            }
-        } catch (final PageRenderingException ex) {
-            pdfView.post(new Runnable() {
-                @Override
-                public void run() {
-                    pdfView.onPageError(ex);
-                }
-            });
-        }
-    }
-
-    private PagePart proceed(RenderingTask renderingTask) throws PageRenderingException {
-        PdfFile pdfFile = pdfView.pdfFile;
-        pdfFile.openPage(renderingTask.page);
-
-        int w = Math.round(renderingTask.width);
-        int h = Math.round(renderingTask.height);
-
-        if (w == 0 || h == 0 || pdfFile.pageHasError(renderingTask.page)) {
-            return null;
-        }
-
-        Bitmap render;
-        try {
-            render = Bitmap.createBitmap(w, h, renderingTask.bestQuality ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565);
-        } catch (IllegalArgumentException e) {
-            Log.e(TAG, "Cannot create bitmap", e);
-            return null;
-        }
-        calculateBounds(w, h, renderingTask.bounds);
-
-        pdfFile.renderPageBitmap(render, renderingTask.page, roundedRenderBounds, renderingTask.annotationRendering);
-
-        return new PagePart(renderingTask.page, render,
-                renderingTask.bounds, renderingTask.thumbnail,
-                renderingTask.cacheOrder);
-    }
-
-    private void calculateBounds(int width, int height, RectF pageSliceBounds) {
-        renderMatrix.reset();
-        renderMatrix.postTranslate(-pageSliceBounds.left * width, -pageSliceBounds.top * height);
-        renderMatrix.postScale(1 / pageSliceBounds.width(), 1 / pageSliceBounds.height());
-
-        renderBounds.set(0, 0, width, height);
-        renderMatrix.mapRect(renderBounds);
-        renderBounds.round(roundedRenderBounds);
-    }
-
-    void stop() {
-        running = false;
-    }
-
-    void start() {
-        running = true;
-    }
-
-    private class RenderingTask {
-
-        float width, height;
-
-        RectF bounds;
-
-        int page;
-
-        boolean thumbnail;
-
-        int cacheOrder;
-
-        boolean bestQuality;
-
-        boolean annotationRendering;
-
-        RenderingTask(float width, float height, RectF bounds, int page, boolean thumbnail, int cacheOrder, boolean bestQuality, boolean annotationRendering) {
-            this.page = page;
-            this.width = width;
-            this.height = height;
-            this.bounds = bounds;
-            this.thumbnail = thumbnail;
-            this.cacheOrder = cacheOrder;
-            this.bestQuality = bestQuality;
-            this.annotationRendering = annotationRendering;
-        }
-    }
-}
+/**
+ * Copyright 2016 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Matrix;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.Log;
+import android.util.SparseBooleanArray;
+
+import com.github.barteksc.pdfviewer.PdfFile.DocumentHandle;
+import com.github.barteksc.pdfviewer.exception.PageRenderingException;
+import com.github.barteksc.pdfviewer.model.PagePart;
+import com.github.barteksc.pdfviewer.util.Constants;
+import com.github.barteksc.pdfviewer.util.LongHashMap;
+import com.github.barteksc.pdfviewer.util.TileKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Schedules {@link RenderingTask}s and alerts {@link PDFView#onBitmapRendered(PagePart)}
+ * when the portion of the PDF is ready to render.
+ * Tasks are rendered by priority, visible parts closest to the center of the viewport first.
+ * Each generation of requests, between {@link #startGeneration()} and {@link #finishGeneration()},
+ * makes older tasks stale, tasks requested again in the new generation keep their place in the queue,
+ * the others are dropped when they are reached, or cancelled while they are rendered.
+ * Requests of parts which are queued or being rendered are merged with the pending task,
+ * until its part is handed over to the cache.
+ * There is one rendering thread for each document handle.
+ * <p>
+ * Rendering is checked for cancellation between its stages. Parts of pages which were slow to render
+ * are rendered in horizontal bands, so rendering of a stale part is aborted after the current band,
+ * and rendering of a part outranked by a task of higher priority is paused once and resumed later from the next band,
+ * ahead of other tasks of the same priority.
+ * <p>
+ * Queued parts adjacent to the taken part, which form a rectangular block of the same page and zoom level,
+ * are taken together with it, rendered by one native call and split into separate parts.
+ * <p>
+ * Rendered parts are collected in a queue and handed over to the view once per frame,
+ * up to {@link Constants#MAX_UPLOAD_BYTES_PER_FRAME}, and only regions of the screen covered by them are redrawn.
+ */
+class RenderingHandler {
+
+    /** Drafts of progressive rendering are rendered first, they cover visible regions of pages */
+    static final int PRIORITY_DRAFT = 0;
+
+    /** Thumbnails cover whole pages */
+    static final int PRIORITY_THUMBNAIL = 1;
+
+    /** Parts which are visible on the screen */
+    static final int PRIORITY_VISIBLE = 2;
+
+    /** Parts which are preloaded around the screen */
+    static final int PRIORITY_PRELOAD = 3;
+
+    private static final String TAG = RenderingHandler.class.getName();
+
+    static final int MAX_POOLED_TASKS = 64;
+
+    private PDFView pdfView;
+
+    /** Guards all fields below */
+    private final Object lock = new Object();
+
+    private final RenderQueue queue = new RenderQueue();
+
+    /** Queued tasks by their key */
+    private final LongHashMap<RenderingTask> queuedTasks = new LongHashMap<>();
+
+    /** Tasks taken by rendering threads by their key, until their parts are cached */
+    private final LongHashMap<RenderingTask> inFlightTasks = new LongHashMap<>();
+
+    /** Generation of new requests */
+    private int generation = 0;
+
+    /** Tasks of older generations are stale */
+    private int validGeneration = 0;
+
+    /** Number of rendering threads waiting for a task */
+    private int waitingWorkers = 0;
+
+    /** Pages which took long to render, their parts are rendered in bands */
+    private final SparseBooleanArray heavyPages = new SparseBooleanArray();
+
+    private long sequence = 0;
+
+    /** Finished tasks which can be reused */
+    private final List<RenderingTask> taskPool = new ArrayList<>();
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private volatile boolean running = false;
+
+    /** Set by {@link #close()}, rendering threads close their document handles when they stop */
+    private volatile boolean closeHandles = false;
+
+    /** Rendered tasks waiting for the next frame */
+    private final ConcurrentLinkedQueue<RenderingTask> renderedTasks = new ConcurrentLinkedQueue<>();
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+
+    private final Runnable drainRenderedTasks = new Runnable() {
+        @Override
+        public void run() {
+            drainRenderedTasks();
+        }
+    };
+
+    RenderingHandler(PDFView pdfView) {
+        this.pdfView = pdfView;
+        List<DocumentHandle> handles = pdfView.pdfFile.getHandles();
+        for (int i = 0; i < handles.size(); i++) {
+            workers.add(new Thread(new Worker(handles.get(i)), "PDF renderer " + (i + 1)));
+        }
+    }
+
+    /**
+     * Queue task, change priority of the queued task with the same key
+     * or update the task with the same key which is being rendered
+     *
+     * @param reducedQuality part is requested during motion and rendered again when the view settles
+     * @param priority       one of PRIORITY_* constants
+     * @param distance       distance of the part from the center of the viewport, in pixels
+     */
+    void addRenderingTask(int page, long key, float width, float height, RectF bounds, boolean thumbnail, int cacheOrder,
+                          boolean bestQuality, boolean annotationRendering, boolean reducedQuality,
+                          int priority, float distance) {
+        synchronized (lock) {
+            RenderingTask inFlight = inFlightTasks.get(key);
+            if (inFlight != null && inFlight.isSameRender(width, height, bounds, bestQuality, annotationRendering, reducedQuality)) {
+                inFlight.cacheOrder = cacheOrder;
+                inFlight.generation = generation;
+                return;
+            }
+
+            RenderingTask task = queuedTasks.get(key);
+            if (task != null && task.isSameRender(width, height, bounds, bestQuality, annotationRendering, reducedQuality)) {
+                task.cacheOrder = cacheOrder;
+                task.generation = generation;
+                task.priority = priority;
+                task.distance = distance;
+                queue.update(task);
+                return;
+            }
+            if (task != null) {
+                queue.remove(task);
+                releasePartialBitmap(task);
+                recycleTask(task);
+            }
+            task = obtainTask();
+            task.set(width, height, bounds, page, key, thumbnail, cacheOrder,
+                    bestQuality, annotationRendering, reducedQuality);
+            task.generation = generation;
+            task.priority = priority;
+            task.distance = distance;
+            task.sequence = sequence++;
+            queue.add(task);
+            queuedTasks.put(key, task);
+            lock.notify();
+        }
+    }
+
+    /** Start a new generation of requests, tasks which are requested again become part of it */
+    void startGeneration() {
+        synchronized (lock) {
+            generation++;
+        }
+    }
+
+    /** Make tasks which were not requested since {@link #startGeneration()} stale */
+    void finishGeneration() {
+        synchronized (lock) {
+            validGeneration = generation;
+        }
+    }
+
+    /** Wait for the next task of the current generation, return null when stopped */
+    private RenderingTask takeTask() throws InterruptedException {
+        synchronized (lock) {
+            while (running) {
+                RenderingTask task = queue.poll();
+                if (task == null) {
+                    waitingWorkers++;
+                    try {
+                        lock.wait();
+                    } finally {
+                        waitingWorkers--;
+                    }
+                    continue;
+                }
+                queuedTasks.remove(task.key);
+                if (task.generation >= validGeneration) {
+                    inFlightTasks.put(task.key, task);
+                    return task;
+                }
+                releasePartialBitmap(task);
+                recycleTask(task);
+            }
+            return null;
+        }
+    }
+
+    /** True if task should not be rendered anymore */
+    private boolean isCancelled(RenderingTask task) {
+        synchronized (lock) {
+            return !running || task.generation < validGeneration;
+        }
+    }
+
+    /**
+     * True if there is a queued task of higher priority and no rendering thread is free to render it.
+     * Task which was already paused is never outranked, so its rendered bands are not held back again.
+     */
+    private boolean isOutranked(RenderingTask task) {
+        if (task.wasPaused) {
+            return false;
+        }
+        synchronized (lock) {
+            RenderingTask next = queue.peek();
+            return waitingWorkers == 0 && next != null
+                    && next.generation >= validGeneration && next.priority < task.priority;
+        }
+    }
+
+    /**
+     * Return partially rendered task to the queue, where it keeps its place
+     *
+     * @return false if task cannot be resumed
+     */
+    private boolean pauseTask(RenderingTask task) {
+        synchronized (lock) {
+            if (!running || task.generation < validGeneration
+                    || inFlightTasks.get(task.key) != task || queuedTasks.get(task.key) != null) {
+                return false;
+            }
+            inFlightTasks.remove(task.key);
+            queue.add(task);
+            queuedTasks.put(task.key, task);
+            lock.notify();
+            return true;
+        }
+    }
+
+    private boolean isHeavyPage(int page) {
+        synchronized (lock) {
+            return heavyPages.get(page, false);
+        }
+    }
+
+    private void onPageRendered(int page, long renderMillis) {
+        if (renderMillis >= Constants.HEAVY_PAGE_RENDER_MILLIS) {
+            synchronized (lock) {
+                heavyPages.put(page, true);
+            }
+        }
+    }
+
+    private void releasePartialBitmap(RenderingTask task) {
+        if (task.partialBitmap != null) {
+            pdfView.bitmapPool.release(task.partialBitmap);
+            task.partialBitmap = null;
+        }
+    }
+
+    /** Remove task from the in flight tasks, after its part was cached or could not be rendered */
+    private void finishTask(RenderingTask task) {
+        synchronized (lock) {
+            if (inFlightTasks.get(task.key) == task) {
+                inFlightTasks.remove(task.key);
+            }
+            recycleTask(task);
+        }
+    }
+
+    /** Hand over rendered part to the view in the next frame */
+    private void queueRenderedTask(RenderingTask task, PagePart part) {
+        // upload of the bitmap to the GPU starts on this thread, instead of during the first draw
+        part.getRenderedBitmap().prepareToDraw();
+        task.renderedPart = part;
+        renderedTasks.offer(task);
+        if (drainScheduled.compareAndSet(false, true)) {
+            scheduleDrain();
+        }
+    }
+
+    private void scheduleDrain() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            pdfView.postOnAnimation(drainRenderedTasks);
+        } else {
+            pdfView.post(drainRenderedTasks);
+        }
+    }
+
+    /** Cache rendered parts on the UI thread, up to the upload budget of one frame */
+    private void drainRenderedTasks() {
+        drainScheduled.set(false);
+        long uploadedBytes = 0;
+        RenderingTask task;
+        while (uploadedBytes < Constants.MAX_UPLOAD_BYTES_PER_FRAME && (task = renderedTasks.poll()) != null) {
+            PagePart part = task.renderedPart;
+            task.renderedPart = null;
+            if (running) {
+                // part could be requested again while it was rendered
+                synchronized (lock) {
+                    part.setCacheOrder(task.cacheOrder);
+                }
+                pdfView.cacheRenderedPart(part);
+                pdfView.redrawPart(part);
+                uploadedBytes += part.getRenderedBitmap().getByteCount();
+            } else {
+                pdfView.bitmapPool.release(part.getRenderedBitmap());
+            }
+            finishTask(task);
+        }
+        if (!renderedTasks.isEmpty() && drainScheduled.compareAndSet(false, true)) {
+            scheduleDrain();
+        }
+    }
+
+    /** Get queued task with given key, or null if it is not queued */
+    RenderingTask getQueuedTask(long key) {
+        synchronized (lock) {
+            return queuedTasks.get(key);
+        }
+    }
+
+    int getQueuedTaskCount() {
+        synchronized (lock) {
+            return queuedTasks.size();
+        }
+    }
+
+    /** Number of finished tasks kept for reuse */
+    int getPooledTaskCount() {
+        synchronized (lock) {
+            return taskPool.size();
+        }
+    }
+
+    private RenderingTask obtainTask() {
+        int last = taskPool.size() - 1;
+        return last >= 0 ? taskPool.remove(last) : new RenderingTask();
+    }
+
+    /** Return task which is neither queued nor in flight to the pool */
+    private void recycleTask(RenderingTask task) {
+        if (taskPool.size() < MAX_POOLED_TASKS) {
+            taskPool.add(task);
+        }
+    }
+
+    /** Renders tasks with its own document handle and temporary objects */
+    private class Worker implements Runnable {
+
+        private final DocumentHandle handle;
+
+        private final RectF renderBounds = new RectF();
+        private final Rect roundedRenderBounds = new Rect();
+        private final Matrix renderMatrix = new Matrix();
+        private final Rect bandBounds = new Rect();
+        private final Canvas bandCanvas = new Canvas();
+
+        /** True if the last task was paused and returned to the queue */
+        private boolean paused;
+
+        /** Tasks of a block of adjacent parts, row by row */
+        private final List<RenderingTask> block = new ArrayList<>();
+        private final List<RenderingTask> blockRow = new ArrayList<>();
+        private Bitmap[] blockBitmaps = new Bitmap[16];
+        private int blockColumns;
+
+        /** Position and size of the block on the page, in pixels */
+        private int blockLeft, blockTop, blockWidth, blockHeight;
+
+        /** Size of the page at the zoom of the block, in pixels */
+        private int blockPageWidth, blockPageHeight;
+
+        Worker(DocumentHandle handle) {
+            this.handle = handle;
+        }
+
+        @Override
+        public void run() {
+            try {
+                RenderingTask task;
+                while ((task = takeTask()) != null) {
+                    collectBlock(task);
+                    if (block.size() > 1) {
+                        renderBlock();
+                    } else {
+                        render(task);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // stopped
+            } finally {
+                if (closeHandles) {
+                    PdfFile.close(handle);
+                }
+            }
+        }
+
+        void render(final RenderingTask task) {
+            try {
+                paused = false;
+                final PagePart part = proceed(task);
+                if (!paused) {
+                    deliver(task, part);
+                }
+            } catch (PageRenderingException ex) {
+                releasePartialBitmap(task);
+                finishTask(task);
+                postError(ex);
+            }
+        }
+
+        /** Hand over rendered part to the cache, or just finish the task if the part is null */
+        private void deliver(RenderingTask task, PagePart part) {
+            if (part != null && running) {
+                queueRenderedTask(task, part);
+                return;
+            }
+            if (part != null) {
+                pdfView.bitmapPool.release(part.getRenderedBitmap());
+            }
+            finishTask(task);
+        }
+
+        private void postError(final PageRenderingException ex) {
+            pdfView.post(new Runnable() {
+                @Override
+                public void run() {
+                    pdfView.onPageError(ex);
+                }
+            });
+        }
+
+        /**
+         * Take queued tasks adjacent to the first task, which together form a rectangular block
+         * not larger than {@link Constants#BLOCK_RENDER_MAX_BYTES}
+         */
+        private void collectBlock(RenderingTask first) {
+            block.clear();
+            block.add(first);
+            blockColumns = 1;
+            int level = TileKey.level(first.key);
+            if (first.thumbnail || level == TileKey.DRAFT_LEVEL || first.partialBitmap != null) {
+                return;
+            }
+            int firstWidth = Math.round(first.width);
+            int firstHeight = Math.round(first.height);
+            if (firstWidth == 0 || firstHeight == 0) {
+                return;
+            }
+            long maxPixels = Constants.BLOCK_RENDER_MAX_BYTES / (first.bestQuality ? 4 : 2);
+
+            synchronized (lock) {
+                // heavy pages are rendered in bands instead
+                if (heavyPages.get(first.page, false)) {
+                    return;
+                }
+                calculateBounds(firstWidth, firstHeight, first.bounds);
+                blockPageWidth = roundedRenderBounds.width();
+                blockPageHeight = roundedRenderBounds.height();
+                blockLeft = -roundedRenderBounds.left;
+                blockTop = -roundedRenderBounds.top;
+                blockWidth = firstWidth;
+                blockHeight = firstHeight;
+                int firstRow = TileKey.row(first.key);
+                int lastRow = firstRow;
+                int firstCol = TileKey.col(first.key);
+                int lastCol = firstCol;
+
+                RenderingTask next;
+                while ((next = findBlockTask(first, firstRow, lastCol + 1)) != null
+                        && -roundedRenderBounds.left == blockLeft + blockWidth
+                        && -roundedRenderBounds.top == blockTop && Math.round(next.height) == blockHeight
+                        && (long) (blockWidth + Math.round(next.width)) * blockHeight <= maxPixels) {
+                    block.add(next);
+                    blockWidth += Math.round(next.width);
+                    lastCol++;
+                }
+                while ((next = findBlockTask(first, firstRow, firstCol - 1)) != null
+                        && -roundedRenderBounds.left + Math.round(next.width) == blockLeft
+                        && -roundedRenderBounds.top == blockTop && Math.round(next.height) == blockHeight
+                        && (long) (blockWidth + Math.round(next.width)) * blockHeight <= maxPixels) {
+                    block.add(0, next);
+                    blockWidth += Math.round(next.width);
+                    blockLeft -= Math.round(next.width);
+                    firstCol--;
+                }
+                blockColumns = block.size();
+
+                while (collectBlockRow(first, lastRow + 1, firstCol, blockTop + blockHeight, false, maxPixels)) {
+                    block.addAll(blockRow);
+                    lastRow++;
+                }
+                while (collectBlockRow(first, firstRow - 1, firstCol, blockTop, true, maxPixels)) {
+                    block.addAll(0, blockRow);
+                    firstRow--;
+                }
+
+                for (int i = 0; i < block.size(); i++) {
+                    RenderingTask task = block.get(i);
+                    if (task != first) {
+                        queue.remove(task);
+                        queuedTasks.remove(task.key);
+                        inFlightTasks.put(task.key, task);
+                    }
+                }
+            }
+        }
+
+        /**
+         * Collect row of queued tasks above or below the block, with the same columns as the block
+         *
+         * @param edge top edge of the row, or its bottom edge if it is above the block
+         * @return true if the whole row was collected into {@link #blockRow}
+         */
+        private boolean collectBlockRow(RenderingTask first, int row, int firstCol, int edge, boolean above, long maxPixels) {
+            blockRow.clear();
+            int left = blockLeft;
+            int rowHeight = 0;
+            for (int i = 0; i < blockColumns; i++) {
+                int columnWidth = Math.round(block.get(i).width);
+                RenderingTask task = findBlockTask(first, row, firstCol + i);
+                if (task == null || -roundedRenderBounds.left != left || Math.round(task.width) != columnWidth) {
+                    return false;
+                }
+                if (i == 0) {
+                    rowHeight = Math.round(task.height);
+                }
+                int top = -roundedRenderBounds.top;
+                if (Math.round(task.height) != rowHeight || (above ? top + rowHeight : top) != edge) {
+                    return false;
+                }
+                blockRow.add(task);
+                left += columnWidth;
+            }
+            if ((long) blockWidth * (blockHeight + rowHeight) > maxPixels) {
+                return false;
+            }
+            blockHeight += rowHeight;
+            if (above) {
+                blockTop -= rowHeight;
+            }
+            return true;
+        }
+
+        /**
+         * Find queued task at the given cell, which can be rendered together with the first task.
+         * Its rounded render bounds are left in {@link #roundedRenderBounds}.
+         */
+        private RenderingTask findBlockTask(RenderingTask first, int row, int col) {
+            if (row < 0 || col < 0 || row > TileKey.MAX_CELL || col > TileKey.MAX_CELL) {
+                return null;
+            }
+            RenderingTask task = queuedTasks.get(TileKey.pack(first.page, TileKey.level(first.key), row, col));
+            if (task == null || task.generation < validGeneration || task.partialBitmap != null
+                    || task.bestQuality != first.bestQuality || task.annotationRendering != first.annotationRendering
+                    || task.reducedQuality != first.reducedQuality) {
+                return null;
+            }
+            int w = Math.round(task.width);
+            int h = Math.round(task.height);
+            if (w == 0 || h == 0) {
+                return null;
+            }
+            calculateBounds(w, h, task.bounds);
+            if (roundedRenderBounds.width() != blockPageWidth || roundedRenderBounds.height() != blockPageHeight) {
+                return null;
+            }
+            return task;
+        }
+
+        /** Render collected block with one native call and split it into parts */
+        private void renderBlock() {
+            PdfFile pdfFile = pdfView.pdfFile;
+            RenderingTask first = block.get(0);
+            Bitmap.Config config = first.bestQuality ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+            int size = block.size();
+            if (blockBitmaps.length < size) {
+                blockBitmaps = new Bitmap[size];
+            }
+
+            int missing = size;
+            DiskTileCache diskTileCache = pdfView.diskTileCache;
+            if (diskTileCache != null) {
+                for (int i = 0; i < size; i++) {
+                    RenderingTask task = block.get(i);
+                    blockBitmaps[i] = diskTileCache.get(task.key, task.bounds,
+                            Math.round(task.width), Math.round(task.height), config);
+                    if (blockBitmaps[i] != null) {
+                        missing--;
+                    }
+                }
+            }
+
+            Bitmap render = null;
+            try {
+                if (missing > 0 && pdfFile != null && !isCancelled(first)) {
+                    pdfFile.openPage(handle, first.page);
+                    if (!pdfFile.pageHasError(handle, first.page) && !isCancelled(first)) {
+                        render = pdfView.bitmapPool.acquire(blockWidth, blockHeight, config);
+                        bandBounds.set(-blockLeft, -blockTop, blockPageWidth - blockLeft, blockPageHeight - blockTop);
+                        long start = SystemClock.uptimeMillis();
+                        pdfFile.renderPageBitmap(handle, render, first.page, bandBounds, first.annotationRendering);
+                        onPageRendered(first.page, (SystemClock.uptimeMillis() - start) / size);
+                    }
+                }
+            } catch (PageRenderingException ex) {
+                if (render != null) {
+                    pdfView.bitmapPool.release(render);
+                    render = null;
+                }
+                postError(ex);
+            } catch (IllegalArgumentException e) {
+                Log.e(TAG, "Cannot create bitmap", e);
+            }
+
+            int x = 0;
+            int y = 0;
+            for (int i = 0; i < size; i++) {
+                RenderingTask task = block.get(i);
+                int w = Math.round(task.width);
+                int h = Math.round(task.height);
+                Bitmap bitmap = blockBitmaps[i];
+                blockBitmaps[i] = null;
+                // parts from the disk cache are always in full quality
+                boolean reducedQuality = task.reducedQuality && bitmap == null;
+                if (bitmap == null && render != null) {
+                    bitmap = pdfView.bitmapPool.acquire(w, h, config);
+                    bandCanvas.setBitmap(bitmap);
+                    bandCanvas.drawBitmap(render, -x, -y, null);
+                }
+                deliver(task, bitmap != null ? PagePart.fromKey(task.key, bitmap, new RectF(task.bounds), false,
+                        task.cacheOrder, reducedQuality) : null);
+                x += w;
+                if ((i + 1) % blockColumns == 0) {
+                    x = 0;
+                    y += h;
+                }
+            }
+            if (render != null) {
+                pdfView.bitmapPool.release(render);
+            }
+        }
+
+        private PagePart proceed(RenderingTask renderingTask) throws PageRenderingException {
+            PdfFile pdfFile = pdfView.pdfFile;
+            int w = Math.round(renderingTask.width);
+            int h = Math.round(renderingTask.height);
+            Bitmap.Config config = renderingTask.bestQuality ? Bitmap.Config.ARGB_8888 : Bitmap.Config.RGB_565;
+
+            DiskTileCache diskTileCache = pdfView.diskTileCache;
+            boolean draft = TileKey.level(renderingTask.key) == TileKey.DRAFT_LEVEL;
+            if (diskTileCache != null && !renderingTask.thumbnail && !draft && w > 0 && h > 0) {
+                Bitmap cached = diskTileCache.get(renderingTask.key, renderingTask.bounds, w, h, config);
+                if (cached != null) {
+                    return PagePart.fromKey(renderingTask.key, cached,
+                            new RectF(renderingTask.bounds), false, renderingTask.cacheOrder, false);
+                }
+            }
+
+            if (pdfFile == null || isCancelled(renderingTask)) {
+                releasePartialBitmap(renderingTask);
+                return null;
+            }
+            pdfFile.openPage(handle, renderingTask.page);
+
+            if (w == 0 || h == 0 || pdfFile.pageHasError(handle, renderingTask.page) || isCancelled(renderingTask)) {
+                releasePartialBitmap(renderingTask);
+                return null;
+            }
+
+            // bitmap of a paused task already contains its first bands
+            Bitmap render = renderingTask.partialBitmap;
+            renderingTask.partialBitmap = null;
+            if (render == null) {
+                try {
+                    render = pdfView.bitmapPool.acquire(w, h, config);
+                } catch (IllegalArgumentException e) {
+                    Log.e(TAG, "Cannot create bitmap", e);
+                    return null;
+                }
+                renderingTask.bands = !renderingTask.thumbnail && !draft && isHeavyPage(renderingTask.page)
+                        ? Constants.RENDER_BANDS : 1;
+                renderingTask.nextBand = 0;
+            }
+            calculateBounds(w, h, renderingTask.bounds);
+
+            if (renderingTask.bands == 1) {
+                long start = SystemClock.uptimeMillis();
+                pdfFile.renderPageBitmap(handle, render, renderingTask.page, roundedRenderBounds, renderingTask.annotationRendering);
+                onPageRendered(renderingTask.page, SystemClock.uptimeMillis() - start);
+            } else {
+                int bandHeight = (h + renderingTask.bands - 1) / renderingTask.bands;
+                int firstBand = renderingTask.nextBand;
+                for (int band = firstBand; band < renderingTask.bands; band++) {
+                    if (band > firstBand && isCancelled(renderingTask)) {
+                        pdfView.bitmapPool.release(render);
+                        return null;
+                    }
+                    if (band > firstBand && isOutranked(renderingTask)) {
+                        renderingTask.partialBitmap = render;
+                        renderingTask.nextBand = band;
+                        renderingTask.wasPaused = true;
+                        if (pauseTask(renderingTask)) {
+                            paused = true;
+                        } else {
+                            releasePartialBitmap(renderingTask);
+                        }
+                        return null;
+                    }
+                    renderBand(pdfFile, renderingTask, render, band * bandHeight, Math.min(bandHeight, h - band * bandHeight), config);
+                }
+            }
+
+            return PagePart.fromKey(renderingTask.key, render,
+                    new RectF(renderingTask.bounds), renderingTask.thumbnail,
+                    renderingTask.cacheOrder, renderingTask.reducedQuality);
+        }
+
+        /** Render horizontal band of the part into a separate bitmap and copy it to the part */
+        private void renderBand(PdfFile pdfFile, RenderingTask renderingTask, Bitmap render, int top, int height, Bitmap.Config config) {
+            if (height <= 0) {
+                return;
+            }
+            Bitmap band = pdfView.bitmapPool.acquire(render.getWidth(), height, config);
+            bandBounds.set(roundedRenderBounds);
+            bandBounds.offset(0, -top);
+            pdfFile.renderPageBitmap(handle, band, renderingTask.page, bandBounds, renderingTask.annotationRendering);
+            bandCanvas.setBitmap(render);
+            bandCanvas.drawBitmap(band, 0, top, null);
+            pdfView.bitmapPool.release(band);
+        }
+
+        private void calculateBounds(int width, int height, RectF pageSliceBounds) {
+            renderMatrix.reset();
+            renderMatrix.postTranslate(-pageSliceBounds.left * width, -pageSliceBounds.top * height);
+            renderMatrix.postScale(1 / pageSliceBounds.width(), 1 / pageSliceBounds.height());
+
+            renderBounds.set(0, 0, width, height);
+            renderMatrix.mapRect(renderBounds);
+            renderBounds.round(roundedRenderBounds);
+        }
+    }
+
+    void stop() {
+        synchronized (lock) {
+            running = false;
+            RenderingTask task;
+            while ((task = queue.poll()) != null) {
+                releasePartialBitmap(task);
+                recycleTask(task);
+            }
+            queuedTasks.clear();
+            inFlightTasks.clear();
+            lock.notifyAll();
+        }
+        // release parts which were not handed over yet, stop is called on the UI thread
+        drainRenderedTasks();
+    }
+
+    /** Stop rendering, each rendering thread closes its document handle after its current task */
+    void close() {
+        closeHandles = true;
+        stop();
+    }
+
+    void start() {
+        running = true;
+        for (Thread worker : workers) {
+            worker.start();
+        }
+    }
+}
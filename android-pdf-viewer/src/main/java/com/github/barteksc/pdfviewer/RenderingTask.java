@@ -0,0 +1,131 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer;
+
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+
+import com.github.barteksc.pdfviewer.model.PagePart;
+
+/**
+ * Request to render a part of a page, scheduled by {@link RenderingHandler}.
+ * Finished tasks are reused for new requests.
+ */
+class RenderingTask {
+
+    float width, height;
+
+    final RectF bounds = new RectF();
+
+    int page;
+
+    long key;
+
+    boolean thumbnail;
+
+    int cacheOrder;
+
+    boolean bestQuality;
+
+    boolean annotationRendering;
+
+    /** Generation of {@link RenderingHandler} in which the task was requested last time */
+    int generation;
+
+    /** One of RenderingHandler.PRIORITY_* constants, tasks with lower value are rendered first */
+    int priority;
+
+    /** Distance of the part from the center of the viewport, in pixels */
+    float distance;
+
+    /** Keeps order of adding for tasks with equal priority and distance */
+    long sequence;
+
+    /** Position in the {@link RenderQueue}, -1 if the task is not queued */
+    int queueIndex = -1;
+
+    /** Number of horizontal bands in which the part is rendered */
+    int bands = 1;
+
+    /** First band which is not rendered yet */
+    int nextBand = 0;
+
+    /** Bitmap with rendered bands of a paused task, null if rendering was not started */
+    Bitmap partialBitmap;
+
+    /** True if the task was paused once, it is not paused again after it is resumed */
+    boolean wasPaused;
+
+    /** True if the part was requested during motion, with reduced quality */
+    boolean reducedQuality;
+
+    /** Rendered part waiting to be handed over to the cache on the UI thread */
+    PagePart renderedPart;
+
+    /** Initialize new or reused task, bounds are copied */
+    void set(float width, float height, RectF bounds, int page, long key, boolean thumbnail, int cacheOrder,
+             boolean bestQuality, boolean annotationRendering, boolean reducedQuality) {
+        this.page = page;
+        this.key = key;
+        this.width = width;
+        this.height = height;
+        this.bounds.set(bounds);
+        this.thumbnail = thumbnail;
+        this.cacheOrder = cacheOrder;
+        this.bestQuality = bestQuality;
+        this.annotationRendering = annotationRendering;
+        this.reducedQuality = reducedQuality;
+        this.bands = 1;
+        this.nextBand = 0;
+        this.wasPaused = false;
+    }
+
+    /**
+     * True if this task renders the same bitmap as a task with given parameters,
+     * or the same part in full quality when reduced quality is requested
+     */
+    boolean isSameRender(float width, float height, RectF bounds, boolean bestQuality, boolean annotationRendering,
+                         boolean reducedQuality) {
+        if (this.width != width || this.height != height || !this.bounds.equals(bounds)) {
+            return false;
+        }
+        if (reducedQuality && !this.reducedQuality) {
+            return true;
+        }
+        return this.reducedQuality == reducedQuality
+                && this.bestQuality == bestQuality && this.annotationRendering == annotationRendering;
+    }
+
+    /**
+     * True if this task should be rendered before the other one, tasks of newer generations come first,
+     * partially rendered tasks come before other tasks of the same priority
+     */
+    boolean isBefore(RenderingTask other) {
+        if (generation != other.generation) {
+            return generation > other.generation;
+        }
+        if (priority != other.priority) {
+            return priority < other.priority;
+        }
+        if ((partialBitmap != null) != (other.partialBitmap != null)) {
+            return partialBitmap != null;
+        }
+        if (distance != other.distance) {
+            return distance < other.distance;
+        }
+        return sequence < other.sequence;
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.backend;
+
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+
+import com.shockwave.pdfium.PdfDocument;
+import com.shockwave.pdfium.util.Size;
+
+import java.util.List;
+
+/**
+ * Opened document, all page indexes are indexes in the document, not user pages.
+ * Calls are synchronized by the caller, so implementations do not have to be thread safe.
+ */
+public interface DocumentEngine {
+
+    int getPageCount();
+
+    /** Get original page size, in points */
+    Size getPageSize(int page);
+
+    /**
+     * Prepare page for rendering, called once before the page is rendered for the first time
+     *
+     * @throws Exception if page cannot be opened
+     */
+    void openPage(int page) throws Exception;
+
+    /**
+     * Render region of the page into the bitmap. The page is scaled to size of sizeX x sizeY pixels
+     * and moved by startX and startY, so only its part inside the bitmap is rendered.
+     */
+    void renderPage(Bitmap bitmap, int page, int startX, int startY, int sizeX, int sizeY, boolean annotationRendering);
+
+    PdfDocument.Meta getDocumentMeta();
+
+    List<PdfDocument.Bookmark> getTableOfContents();
+
+    List<PdfDocument.Link> getPageLinks(int page);
+
+    /** Map rect in page coordinates to the coordinates of the page rendered with given position and size */
+    RectF mapRectToDevice(int page, int startX, int startY, int sizeX, int sizeY, RectF rect);
+
+    void close();
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.backend;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+
+import com.github.barteksc.pdfviewer.source.DocumentSource;
+import com.shockwave.pdfium.PdfDocument;
+import com.shockwave.pdfium.PdfiumCore;
+import com.shockwave.pdfium.util.Size;
+
+import java.io.IOException;
+import java.util.List;
+
+/** Default backend, which opens and renders documents with pdfium */
+public class PdfiumRenderBackend implements RenderBackend {
+
+    private final PdfiumCore pdfiumCore;
+
+    public PdfiumRenderBackend(Context context) {
+        this(new PdfiumCore(context));
+    }
+
+    public PdfiumRenderBackend(PdfiumCore pdfiumCore) {
+        this.pdfiumCore = pdfiumCore;
+    }
+
+    @Override
+    public DocumentEngine open(Context context, DocumentSource documentSource, String password) throws IOException {
+        return new PdfiumDocumentEngine(pdfiumCore, documentSource.createDocument(context, pdfiumCore, password));
+    }
+
+    /** Calls of pdfium are serialized by one lock shared by all documents */
+    @Override
+    public boolean supportsParallelRendering() {
+        return false;
+    }
+
+    private static class PdfiumDocumentEngine implements DocumentEngine {
+
+        private final PdfiumCore pdfiumCore;
+
+        private final PdfDocument pdfDocument;
+
+        PdfiumDocumentEngine(PdfiumCore pdfiumCore, PdfDocument pdfDocument) {
+            this.pdfiumCore = pdfiumCore;
+            this.pdfDocument = pdfDocument;
+        }
+
+        @Override
+        public int getPageCount() {
+            return pdfiumCore.getPageCount(pdfDocument);
+        }
+
+        @Override
+        public Size getPageSize(int page) {
+            return pdfiumCore.getPageSize(pdfDocument, page);
+        }
+
+        @Override
+        public void openPage(int page) throws Exception {
+            pdfiumCore.openPage(pdfDocument, page);
+        }
+
+        @Override
+        public void renderPage(Bitmap bitmap, int page, int startX, int startY, int sizeX, int sizeY, boolean annotationRendering) {
+            pdfiumCore.renderPageBitmap(pdfDocument, bitmap, page, startX, startY, sizeX, sizeY, annotationRendering);
+        }
+
+        @Override
+        public PdfDocument.Meta getDocumentMeta() {
+            return pdfiumCore.getDocumentMeta(pdfDocument);
+        }
+
+        @Override
+        public List<PdfDocument.Bookmark> getTableOfContents() {
+            return pdfiumCore.getTableOfContents(pdfDocument);
+        }
+
+        @Override
+        public List<PdfDocument.Link> getPageLinks(int page) {
+            return pdfiumCore.getPageLinks(pdfDocument, page);
+        }
+
+        @Override
+        public RectF mapRectToDevice(int page, int startX, int startY, int sizeX, int sizeY, RectF rect) {
+            return pdfiumCore.mapRectToDevice(pdfDocument, page, startX, startY, sizeX, sizeY, 0, rect);
+        }
+
+        @Override
+        public void close() {
+            pdfiumCore.closeDocument(pdfDocument);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.backend;
+
+import android.content.Context;
+
+import com.github.barteksc.pdfviewer.source.DocumentSource;
+
+import java.io.IOException;
+
+/**
+ * Opens documents for {@link com.github.barteksc.pdfviewer.PDFView}, default implementation uses pdfium
+ */
+public interface RenderBackend {
+
+    /**
+     * Open the document, called on a background thread
+     *
+     * @throws IOException if document cannot be opened
+     */
+    DocumentEngine open(Context context, DocumentSource documentSource, String password) throws IOException;
+
+    /**
+     * Whether separate instances of a document can render at the same time. Backends guarded
+     * by one global lock return false, the document is then opened once and rendered by one thread.
+     */
+    boolean supportsParallelRendering();
+}
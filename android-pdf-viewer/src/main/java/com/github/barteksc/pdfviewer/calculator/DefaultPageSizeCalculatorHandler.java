@@ -6,7 +6,7 @@ import com.shockwave.pdfium.util.SizeF;
 /**
  * Default PageSizeCalculator handler
  */
-public class DefaultPageSizeCalculatorHandler implements PageSizeCalculatorHandler {
+public class DefaultPageSizeCalculatorHandler implements PrimitivePageSizeCalculatorHandler {
     /**
      * Gets optimal size for page with greatest width
      *
@@ -56,6 +56,83 @@ public class DefaultPageSizeCalculatorHandler implements PageSizeCalculatorHandl
         }
     }
 
+    /**
+     * Gets scaled page size without allocating
+     *
+     * @param width original page width
+     * @param height original page height
+     * @param args calculator handler args
+     * @param out receives scaled width at index 0 and scaled height at index 1
+     */
+    @Override
+    public void calculate(int width, int height, PageSizeCalculatorArgs args, float[] out) {
+        if (width <= 0 || height <= 0) {
+            out[0] = 0;
+            out[1] = 0;
+            return;
+        }
+
+        float maxWidth = args.viewSize.getWidth();
+        float maxHeight = args.viewSize.getHeight();
+        if (!args.fitEachPage) {
+            // out holds the ratios until the page is fitted
+            calculateRatios(args, out);
+            maxWidth = width * out[0];
+            maxHeight = height * out[1];
+        }
+
+        switch (args.fitPolicy) {
+            case HEIGHT:
+                fitHeight(width, height, maxHeight, out);
+                break;
+            case BOTH:
+                fitBoth(width, height, maxWidth, maxHeight, out);
+                break;
+            default:
+                fitWidth(width, height, maxWidth, out);
+                break;
+        }
+    }
+
+    /**
+     * Calculates width and height scale ratios like {@link #calculateMaxPages(PageSizeCalculatorArgs)},
+     * without allocating
+     *
+     * @param args calculator handler args
+     * @param out receives width ratio at index 0 and height ratio at index 1
+     */
+    private void calculateRatios(PageSizeCalculatorArgs args, float[] out) {
+        Size maxWidthPage = args.originalMaxWidthPageSize;
+        Size maxHeightPage = args.originalMaxHeightPageSize;
+        float widthRatio = 0;
+        float heightRatio = 0;
+
+        switch (args.fitPolicy) {
+            case HEIGHT:
+                fitHeight(maxHeightPage.getWidth(), maxHeightPage.getHeight(), args.viewSize.getHeight(), out);
+                heightRatio = out[1] / maxHeightPage.getHeight();
+                break;
+            case BOTH:
+                fitBoth(maxWidthPage.getWidth(), maxWidthPage.getHeight(), args.viewSize.getWidth(),
+                        args.viewSize.getHeight(), out);
+                float localWidthRatio = out[0] / maxWidthPage.getWidth();
+                fitBoth(maxHeightPage.getWidth(), maxHeightPage.getHeight(), maxHeightPage.getWidth() * localWidthRatio,
+                        args.viewSize.getHeight(), out);
+                heightRatio = out[1] / maxHeightPage.getHeight();
+                fitBoth(maxWidthPage.getWidth(), maxWidthPage.getHeight(), args.viewSize.getWidth(),
+                        maxWidthPage.getHeight() * heightRatio, out);
+                widthRatio = out[0] / maxWidthPage.getWidth();
+                break;
+            default:
+                fitWidth(maxWidthPage.getWidth(), maxWidthPage.getHeight(), args.viewSize.getWidth(), out);
+                widthRatio = out[0] / maxWidthPage.getWidth();
+                break;
+        }
+
+        out[0] = widthRatio;
+        out[1] = heightRatio;
+    }
+
     /**
      * Calculates optimal page sizes, width and height scale ratios
      *
@@ -101,11 +178,15 @@ public class DefaultPageSizeCalculatorHandler implements PageSizeCalculatorHandl
      * @return
      */
     private SizeF fitWidth(Size pageSize, float maxWidth) {
-        float w = pageSize.getWidth(), h = pageSize.getHeight();
+        float[] size = new float[2];
+        fitWidth(pageSize.getWidth(), pageSize.getHeight(), maxWidth, size);
+        return new SizeF(size[0], size[1]);
+    }
+
+    private static void fitWidth(float w, float h, float maxWidth, float[] out) {
         float ratio = w / h;
-        w = maxWidth;
-        h = (float) Math.floor(maxWidth / ratio);
-        return new SizeF(w, h);
+        out[0] = maxWidth;
+        out[1] = (float) Math.floor(maxWidth / ratio);
     }
 
     /**
@@ -116,11 +197,15 @@ public class DefaultPageSizeCalculatorHandler implements PageSizeCalculatorHandl
      * @return
      */
     private SizeF fitHeight(Size pageSize, float maxHeight) {
-        float w = pageSize.getWidth(), h = pageSize.getHeight();
+        float[] size = new float[2];
+        fitHeight(pageSize.getWidth(), pageSize.getHeight(), maxHeight, size);
+        return new SizeF(size[0], size[1]);
+    }
+
+    private static void fitHeight(float w, float h, float maxHeight, float[] out) {
         float ratio = h / w;
-        h = maxHeight;
-        w = (float) Math.floor(maxHeight / ratio);
-        return new SizeF(w, h);
+        out[0] = (float) Math.floor(maxHeight / ratio);
+        out[1] = maxHeight;
     }
 
     /**
@@ -132,7 +217,12 @@ public class DefaultPageSizeCalculatorHandler implements PageSizeCalculatorHandl
      * @return
      */
     private SizeF fitBoth(Size pageSize, float maxWidth, float maxHeight) {
-        float w = pageSize.getWidth(), h = pageSize.getHeight();
+        float[] size = new float[2];
+        fitBoth(pageSize.getWidth(), pageSize.getHeight(), maxWidth, maxHeight, size);
+        return new SizeF(size[0], size[1]);
+    }
+
+    private static void fitBoth(float w, float h, float maxWidth, float maxHeight, float[] out) {
         float ratio = w / h;
         w = maxWidth;
         h = (float) Math.floor(maxWidth / ratio);
@@ -140,7 +230,8 @@ public class DefaultPageSizeCalculatorHandler implements PageSizeCalculatorHandl
             h = maxHeight;
             w = (float) Math.floor(maxHeight * ratio);
         }
-        return new SizeF(w, h);
+        out[0] = w;
+        out[1] = h;
     }
 
     /**
@@ -0,0 +1,17 @@
+package com.github.barteksc.pdfviewer.calculator;
+
+/**
+ * PageSizeCalculator handler which scales pages without allocating,
+ * handlers implementing only {@link PageSizeCalculatorHandler} get a new size for each page
+ */
+public interface PrimitivePageSizeCalculatorHandler extends PageSizeCalculatorHandler {
+    /**
+     * Gets scaled page size, same as {@link #calculate(com.shockwave.pdfium.util.Size, PageSizeCalculatorArgs)}
+     *
+     * @param width original page width
+     * @param height original page height
+     * @param args calculator handler args
+     * @param out receives scaled width at index 0 and scaled height at index 1
+     */
+    void calculate(int width, int height, PageSizeCalculatorArgs args, float[] out);
+}
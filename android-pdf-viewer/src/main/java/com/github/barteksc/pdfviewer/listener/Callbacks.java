@@ -19,6 +19,7 @@ import android.view.MotionEvent;
 
 import com.github.barteksc.pdfviewer.link.LinkHandler;
 import com.github.barteksc.pdfviewer.model.LinkTapEvent;
+import com.github.barteksc.pdfviewer.util.LoadStage;
 
 public class Callbacks {
 
@@ -27,6 +28,11 @@ public class Callbacks {
      */
     private OnLoadCompleteListener onLoadCompleteListener;
 
+    /**
+     * Call back object to call when a stage of document loading is reached
+     */
+    private OnLoadStageListener onLoadStageListener;
+
     /**
      * Call back object to call when document loading error occurs
      */
@@ -84,6 +90,16 @@ public class Callbacks {
         }
     }
 
+    public void setOnLoadStage(OnLoadStageListener onLoadStageListener) {
+        this.onLoadStageListener = onLoadStageListener;
+    }
+
+    public void callOnLoadStage(LoadStage stage, long elapsedMillis) {
+        if (onLoadStageListener != null) {
+            onLoadStageListener.onLoadStage(stage, elapsedMillis);
+        }
+    }
+
     public void setOnError(OnErrorListener onErrorListener) {
         this.onErrorListener = onErrorListener;
     }
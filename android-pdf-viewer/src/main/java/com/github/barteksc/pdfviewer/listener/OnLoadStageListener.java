@@ -0,0 +1,33 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.listener;
+
+import com.github.barteksc.pdfviewer.util.LoadStage;
+
+/**
+ * Implement this interface to track how long it takes to open a document
+ */
+public interface OnLoadStageListener {
+
+    /**
+     * Called once for each stage of opening a document. Staging applies fully only to lazy layout,
+     * otherwise {@link LoadStage#FIRST_PAGES_MEASURED} is not reported, see {@link LoadStage}
+     *
+     * @param stage         reached stage
+     * @param elapsedMillis time since loading of the document started, in milliseconds
+     */
+    void onLoadStage(LoadStage stage, long elapsedMillis);
+}
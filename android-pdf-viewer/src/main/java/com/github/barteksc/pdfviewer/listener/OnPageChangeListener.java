@@ -1,32 +1,32 @@
-/**
- * Copyright 2016 Bartosz Schiller
- * <p>
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * <p>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.github.barteksc.pdfviewer.listener;
-
-/**
- * Implements this interface to receive events from PDFView
- * when a page has changed through swipe
- */
-public interface OnPageChangeListener {
-
-    /**
-     * Called when the user use swipe to change page
-     *
-     * @param page      the new page displayed, starting from 0
-     * @param pageCount the total page count
-     */
-    void onPageChanged(int page, int pageCount);
-
-}
+/**
+ * Copyright 2016 Bartosz Schiller
+ * <p>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.listener;
+
+/**
+ * Implements this interface to receive events from PDFView
+ * when a page has changed through swipe
+ */
+public interface OnPageChangeListener {
+
+    /**
+     * Called when the user use swipe to change page
+     *
+     * @param page      the new page displayed, starting from 0
+     * @param pageCount the total page count
+     */
+    void onPageChanged(int page, int pageCount);
+
+}
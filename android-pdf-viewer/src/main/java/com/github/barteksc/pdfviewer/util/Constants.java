@@ -1,51 +1,121 @@
-/**
- * Copyright 2016 Bartosz Schiller
- * <p/>
- * Licensed under the Apache License, Version 2.0 (the "License");
- * you may not use this file except in compliance with the License.
- * You may obtain a copy of the License at
- * <p/>
- * http://www.apache.org/licenses/LICENSE-2.0
- * <p/>
- * Unless required by applicable law or agreed to in writing, software
- * distributed under the License is distributed on an "AS IS" BASIS,
- * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
- * See the License for the specific language governing permissions and
- * limitations under the License.
- */
-package com.github.barteksc.pdfviewer.util;
-
-public class Constants {
-
-    public static boolean DEBUG_MODE = false;
-
-    /** Between 0 and 1, the thumbnails quality (default 0.3). Increasing this value may cause performance decrease */
-    public static float THUMBNAIL_RATIO = 0.3f;
-
-    /**
-     * The size of the rendered parts (default 256)
-     * Tinier : a little bit slower to have the whole page rendered but more reactive.
-     * Bigger : user will have to wait longer to have the first visual results
-     */
-    public static float PART_SIZE = 256;
-
-    /** Part of document above and below screen that should be preloaded, in dp */
-    public static int PRELOAD_OFFSET = 20;
-
-    public static class Cache {
-
-        /** The size of the cache (number of bitmaps kept) */
-        public static int CACHE_SIZE = 120;
-
-        public static int THUMBNAILS_CACHE_SIZE = 8;
-    }
-
-    public static class Pinch {
-
-        public static float MAXIMUM_ZOOM = 10;
-
-        public static float MINIMUM_ZOOM = 1;
-
-    }
-
-}
+/**
+ * Copyright 2016 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.util;
+
+public class Constants {
+
+    public static boolean DEBUG_MODE = false;
+
+    /** Between 0 and 1, the thumbnails quality (default 0.3). Increasing this value may cause performance decrease */
+    public static float THUMBNAIL_RATIO = 0.3f;
+
+    /**
+     * The size of the rendered parts (default 256)
+     * Tinier : a little bit slower to have the whole page rendered but more reactive.
+     * Bigger : user will have to wait longer to have the first visual results
+     */
+    public static float PART_SIZE = 256;
+
+    /**
+     * Number of zoom levels at which parts are rendered, per doubling of zoom (default 4).
+     * More levels use less memory, fewer levels allow reusing parts for wider range of zoom.
+     */
+    public static int ZOOM_LEVELS_PER_DOUBLING = 4;
+
+    /**
+     * Scale of drafts of progressive rendering relative to the current zoom (default 0.5),
+     * so a draft has a quarter of pixels of the region it covers
+     */
+    public static float DRAFT_RATIO = 0.5f;
+
+    /**
+     * Pages with a part which took at least this long to render are considered heavy (default 100),
+     * their parts are rendered in bands, so rendering can be cancelled or paused between them
+     */
+    public static long HEAVY_PAGE_RENDER_MILLIS = 100;
+
+    /**
+     * Number of horizontal bands in which parts of heavy pages are rendered (default 2).
+     * Pdfium processes the whole page content for each band, so every additional band makes the part slower
+     */
+    public static int RENDER_BANDS = 2;
+
+    /**
+     * Maximum size of a block of adjacent parts rendered by one native call and then split into parts,
+     * in bytes (default 4 MB)
+     */
+    public static int BLOCK_RENDER_MAX_BYTES = 4 * 1024 * 1024;
+
+    /**
+     * Maximum size of rendered parts handed over to the view in one frame, in bytes (default 4 MB),
+     * the rest is handed over in the following frames
+     */
+    public static int MAX_UPLOAD_BYTES_PER_FRAME = 4 * 1024 * 1024;
+
+    /** Number of first pages whose sizes are read when the document is opened with lazy layout (default 8) */
+    public static int LAZY_LAYOUT_SAMPLE_PAGES = 8;
+
+    /** Number of page sizes read in the background before they are applied to the lazy layout (default 4096) */
+    public static int LAZY_LAYOUT_BATCH_PAGES = 4096;
+
+    /** Part of document above and below screen that should be preloaded, in dp */
+    public static int PRELOAD_OFFSET = 20;
+
+    public static class Cache {
+
+        /**
+         * The size of the cache (number of bitmaps kept)
+         *
+         * @deprecated the cache is limited by memory of bitmaps, see {@link #CACHE_MEMORY_RATIO}.
+         * If changed from the default 120, the default cache size is this number of full parts
+         * of {@link Constants#PART_SIZE} in ARGB_8888.
+         */
+        @Deprecated
+        public static int CACHE_SIZE = 120;
+
+        /**
+         * Part of the application memory class used by the cache of rendered parts (default 0.25),
+         * when the cache size is not set explicitly
+         */
+        public static float CACHE_MEMORY_RATIO = 0.25f;
+
+        /**
+         * Part of the application memory class used by the pool of bitmaps kept for reuse
+         * after their parts were evicted from the cache (default 0.05)
+         */
+        public static float BITMAP_POOL_MEMORY_RATIO = 0.05f;
+
+        public static int THUMBNAILS_CACHE_SIZE = 8;
+
+        /** Maximum number of drafts of progressive rendering, one for each page (default 4) */
+        public static int DRAFTS_CACHE_SIZE = 4;
+
+        /**
+         * Maximum number of parts waiting to be written to the disk cache (default 16),
+         * bitmaps of parts evicted when the queue is full are reused without writing them
+         */
+        public static int DISK_CACHE_WRITE_QUEUE_SIZE = 16;
+    }
+
+    public static class Pinch {
+
+        public static float MAXIMUM_ZOOM = 10;
+
+        public static float MINIMUM_ZOOM = 1;
+
+    }
+
+}
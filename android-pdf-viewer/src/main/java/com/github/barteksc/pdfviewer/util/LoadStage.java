@@ -0,0 +1,32 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.util;
+
+/**
+ * Stages of opening a document, in the order in which they are reached with lazy layout.
+ * Without lazy layout, or if the document has only a few pages, sizes of all pages are read at once,
+ * so {@link #FIRST_PAGES_MEASURED} is skipped and {@link #LAYOUT_COMPLETE} comes before {@link #FIRST_PAGE_RENDERED}.
+ */
+public enum LoadStage {
+    /** Document was opened by the backend */
+    DOCUMENT_OPENED,
+    /** Sizes of the default page and its neighbours were read, the document is laid out, only with lazy layout */
+    FIRST_PAGES_MEASURED,
+    /** First part was rendered and handed over to the view */
+    FIRST_PAGE_RENDERED,
+    /** Real sizes of all pages are in the layout */
+    LAYOUT_COMPLETE
+}
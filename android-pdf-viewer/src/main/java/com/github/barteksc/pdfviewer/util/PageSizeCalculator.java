@@ -17,6 +17,7 @@ package com.github.barteksc.pdfviewer.util;
 
 import com.github.barteksc.pdfviewer.calculator.PageSizeCalculatorArgs;
 import com.github.barteksc.pdfviewer.calculator.PageSizeCalculatorHandler;
+import com.github.barteksc.pdfviewer.calculator.PrimitivePageSizeCalculatorHandler;
 import com.shockwave.pdfium.util.Size;
 import com.shockwave.pdfium.util.SizeF;
 
@@ -48,6 +49,24 @@ public class PageSizeCalculator {
         return calculatorHandler.calculate(pageSize, calculatorArgs);
     }
 
+    /**
+     * Gets optimal page size for rendering in view, without allocating
+     * if the handler is a {@link PrimitivePageSizeCalculatorHandler}
+     *
+     * @param width original page width
+     * @param height original page height
+     * @param out receives scaled width at index 0 and scaled height at index 1
+     */
+    public void calculate(int width, int height, float[] out) {
+        if (calculatorHandler instanceof PrimitivePageSizeCalculatorHandler) {
+            ((PrimitivePageSizeCalculatorHandler) calculatorHandler).calculate(width, height, calculatorArgs, out);
+            return;
+        }
+        SizeF size = calculatorHandler.calculate(new Size(width, height), calculatorArgs);
+        out[0] = size.getWidth();
+        out[1] = size.getHeight();
+    }
+
     /**
      * Gets optimal size for the page with greatest width
      *
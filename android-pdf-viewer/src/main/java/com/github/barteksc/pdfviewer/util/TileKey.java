@@ -0,0 +1,91 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.util;
+
+/**
+ * Packs integer address of a rendered part (page, zoom level, row and column) into a single long,
+ * layout is: 20 bits of page, 12 bits of level, 16 bits of row and 16 bits of column
+ */
+public class TileKey {
+
+    public static final int MAX_PAGE = (1 << 20) - 1;
+
+    public static final int MAX_LEVEL = (1 << 12) - 1;
+
+    public static final int MAX_CELL = (1 << 16) - 1;
+
+    /** Level used for thumbnails, which always cover the whole page */
+    public static final int THUMBNAIL_LEVEL = MAX_LEVEL;
+
+    /** Level used for drafts of progressive rendering, there is one draft for each page */
+    public static final int DRAFT_LEVEL = MAX_LEVEL - 1;
+
+    /**
+     * Level used for parts created by applications with only a page number, which are not part of any grid,
+     * row and column are derived from the position of the part in the page
+     */
+    public static final int UNTILED_LEVEL = MAX_LEVEL - 2;
+
+    private TileKey() {
+        // Prevents instantiation
+    }
+
+    public static long pack(int page, int level, int row, int col) {
+        return ((long) (page & MAX_PAGE) << 44)
+                | ((long) (level & MAX_LEVEL) << 32)
+                | ((long) (row & MAX_CELL) << 16)
+                | (long) (col & MAX_CELL);
+    }
+
+    public static long thumbnail(int page) {
+        return pack(page, THUMBNAIL_LEVEL, 0, 0);
+    }
+
+    /** Key of the draft of the page rendered for zoom of given level, which is stored in place of the row */
+    public static long draft(int page, int level) {
+        return pack(page, DRAFT_LEVEL, level, 0);
+    }
+
+    /** Key of a part outside of any grid, identified by its page relative left and top */
+    public static long untiled(int page, float left, float top) {
+        return pack(page, UNTILED_LEVEL, Math.round(top * MAX_CELL), Math.round(left * MAX_CELL));
+    }
+
+    public static int page(long key) {
+        return (int) (key >>> 44) & MAX_PAGE;
+    }
+
+    public static int level(long key) {
+        return (int) (key >>> 32) & MAX_LEVEL;
+    }
+
+    public static int row(long key) {
+        return (int) (key >>> 16) & MAX_CELL;
+    }
+
+    public static int col(long key) {
+        return (int) key & MAX_CELL;
+    }
+
+    public static String toString(long key) {
+        return "TileKey{" +
+                "page=" + page(key) +
+                ", level=" + level(key) +
+                ", row=" + row(key) +
+                ", col=" + col(key) +
+                '}';
+    }
+}
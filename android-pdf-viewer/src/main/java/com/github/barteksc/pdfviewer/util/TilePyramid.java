@@ -0,0 +1,51 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.util;
+
+/**
+ * Discrete zoom levels of rendered parts, like levels of map tiles.
+ * Parts are always rendered at the scale of a level, so parts of a level can be reused
+ * for any zoom which maps to the same level, and parts of other levels can be drawn scaled.
+ */
+public class TilePyramid {
+
+    /** Level of zoom 1, lower levels are used when zoom is below 1 */
+    public static final int BASE_LEVEL = 16;
+
+    /** Prevents rounding errors from moving exact level zooms to the next level */
+    private static final double EPSILON = 1e-4;
+
+    private static final double LN_2 = Math.log(2);
+
+    private TilePyramid() {
+        // Prevents instantiation
+    }
+
+    /**
+     * Get level with the smallest scale which is not lower than given zoom,
+     * so parts are never scaled up when drawn at this zoom
+     */
+    public static int getLevel(float zoom) {
+        double octaves = Math.log(zoom) / LN_2;
+        int level = BASE_LEVEL + (int) Math.ceil(octaves * Constants.ZOOM_LEVELS_PER_DOUBLING - EPSILON);
+        return MathUtils.limit(level, 0, TileKey.UNTILED_LEVEL - 1);
+    }
+
+    /** Get zoom at which parts of given level are rendered */
+    public static float getScale(int level) {
+        return (float) Math.pow(2, (level - BASE_LEVEL) / (double) Constants.ZOOM_LEVELS_PER_DOUBLING);
+    }
+}
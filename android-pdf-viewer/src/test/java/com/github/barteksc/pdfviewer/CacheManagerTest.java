@@ -0,0 +1,100 @@
+package com.github.barteksc.pdfviewer;
+
+import android.graphics.Bitmap;
+import android.graphics.RectF;
+
+import com.github.barteksc.pdfviewer.model.PagePart;
+import com.github.barteksc.pdfviewer.util.TileKey;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that parts kept as a fallback after a change of level are released
+ * once parts of the current level cover them, and before other parts are evicted.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class CacheManagerTest {
+
+    private static final int PART_SIZE = 16;
+
+    private static final int PART_BYTES = PART_SIZE * PART_SIZE * 4;
+
+    private static final RectF FULL_PAGE = new RectF(0, 0, 1, 1);
+
+    private CacheManager cacheManager;
+
+    @Before
+    public void setUp() {
+        cacheManager = new CacheManager(new BitmapPool(0), 2 * PART_BYTES);
+    }
+
+    @Test
+    public void coveredFallbackIsReleasedBeforeEvictingPassiveParts() {
+        PagePart passive = createPart(1, 2);
+        cacheManager.makeANewSet(2);
+        cacheManager.cachePart(passive);
+        cacheManager.makeANewSet(2);
+
+        PagePart fallback = createPart(0, 0);
+        cacheManager.makeANewSet(0);
+        cacheManager.cachePart(fallback);
+        cacheManager.makeANewSet(1);
+
+        PagePart covering = createPart(0, 1);
+        cacheManager.cachePart(covering);
+
+        assertTrue(cacheManager.getPageParts().contains(covering));
+        assertTrue(cacheManager.getPageParts().contains(passive));
+        assertFalse(cacheManager.getPageParts().contains(fallback));
+    }
+
+    @Test
+    public void promotedPartReleasesCoveredFallback() {
+        PagePart covering = createPart(0, 1);
+        cacheManager.makeANewSet(1);
+        cacheManager.cachePart(covering);
+        cacheManager.makeANewSet(1);
+
+        PagePart fallback = createPart(0, 0);
+        cacheManager.makeANewSet(0);
+        cacheManager.cachePart(fallback);
+        cacheManager.makeANewSet(1);
+        assertTrue(cacheManager.getPageParts().contains(fallback));
+
+        assertTrue(cacheManager.upPartIfContained(covering.getKey(), 0));
+
+        assertFalse(cacheManager.getPageParts().contains(fallback));
+    }
+
+    @Test
+    public void fallbackOfCurrentLevelAgainCoversOtherFallbacks() {
+        PagePart covering = createPart(0, 1);
+        cacheManager.makeANewSet(1);
+        cacheManager.cachePart(covering);
+        cacheManager.makeANewSet(0);
+
+        // covers only a half of the fallback part of level 1, so it does not release it
+        PagePart fallback = createPart(0, 0, new RectF(0, 0, 1, 0.5f));
+        cacheManager.cachePart(fallback);
+        assertTrue(cacheManager.getPageParts().contains(covering));
+        cacheManager.makeANewSet(1);
+
+        assertTrue(cacheManager.getPageParts().contains(covering));
+        assertFalse(cacheManager.getPageParts().contains(fallback));
+    }
+
+    private static PagePart createPart(int page, int level) {
+        return createPart(page, level, new RectF(FULL_PAGE));
+    }
+
+    private static PagePart createPart(int page, int level, RectF bounds) {
+        Bitmap bitmap = Bitmap.createBitmap(PART_SIZE, PART_SIZE, Bitmap.Config.ARGB_8888);
+        return PagePart.fromKey(TileKey.pack(page, level, 0, 0), bitmap, bounds, false, 0, false);
+    }
+}
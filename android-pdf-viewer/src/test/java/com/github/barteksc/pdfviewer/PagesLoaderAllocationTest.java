@@ -0,0 +1,172 @@
+package com.github.barteksc.pdfviewer;
+
+import android.app.Activity;
+import android.content.Context;
+import android.view.ViewGroup;
+
+import com.github.barteksc.pdfviewer.backend.DocumentEngine;
+import com.github.barteksc.pdfviewer.backend.SyntheticRenderBackend;
+import com.github.barteksc.pdfviewer.calculator.DefaultPageSizeCalculatorHandler;
+import com.github.barteksc.pdfviewer.util.FitPolicy;
+import com.github.barteksc.pdfviewer.util.TileKey;
+import com.shockwave.pdfium.util.Size;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Requests parts of the same viewports again and again, the way scrolling back and forth does,
+ * and checks that once tasks are queued, requesting them again barely allocates.
+ * Rendering threads are not started, unless a test renders the tasks, so queued tasks stay queued.
+ */
+@RunWith(RobolectricTestRunner.class)
+public class PagesLoaderAllocationTest {
+
+    private static final int VIEW_WIDTH = 1080;
+
+    private static final int VIEW_HEIGHT = 1920;
+
+    private static final int PAGE_COUNT = 200;
+
+    /** Vertical offsets of viewports visited by the simulated scroll, in pixels */
+    private static final float[] SCROLL_OFFSETS = {0, -400, -1300, -2700, -4100, -2700, -1300, -400};
+
+    private static final int MEASURED_SCROLLS = 50;
+
+    /** Invalidation of the view goes through the framework, which is not under test and may allocate */
+    private static final long MAX_BYTES_PER_LOAD = 128;
+
+    private static final long RENDER_TIMEOUT_MILLIS = 10000;
+
+    private PDFView pdfView;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.application;
+        pdfView = new PDFView(context, null);
+        pdfView.layout(0, 0, VIEW_WIDTH, VIEW_HEIGHT);
+
+        DocumentEngine engine = new SyntheticRenderBackend(PAGE_COUNT, new Size(612, 792), 0)
+                .open(context, null, null);
+        pdfView.pdfFile = new PdfFile(Collections.singletonList(engine), FitPolicy.WIDTH,
+                new Size(VIEW_WIDTH, VIEW_HEIGHT), null, true, 0, false, false, false, 0,
+                new DefaultPageSizeCalculatorHandler());
+        pdfView.renderingHandler = new RenderingHandler(pdfView);
+    }
+
+    @After
+    public void tearDown() {
+        pdfView.renderingHandler.stop();
+    }
+
+    @Test
+    public void requestingSameViewportKeepsTasks() {
+        pdfView.loadPages();
+        int queuedCount = pdfView.renderingHandler.getQueuedTaskCount();
+        int pooledCount = pdfView.renderingHandler.getPooledTaskCount();
+        RenderingTask thumbnailTask = pdfView.renderingHandler.getQueuedTask(TileKey.thumbnail(0));
+        assertNotNull(thumbnailTask);
+
+        for (int i = 0; i < MEASURED_SCROLLS; i++) {
+            pdfView.loadPages();
+        }
+
+        assertEquals(queuedCount, pdfView.renderingHandler.getQueuedTaskCount());
+        assertEquals(pooledCount, pdfView.renderingHandler.getPooledTaskCount());
+        assertSame(thumbnailTask, pdfView.renderingHandler.getQueuedTask(TileKey.thumbnail(0)));
+    }
+
+    @Test
+    public void loadingPagesOfRequestedViewportsBarelyAllocates() {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+        assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+        allocationBean.setThreadAllocatedMemoryEnabled(true);
+        long threadId = Thread.currentThread().getId();
+
+        // first pass queues tasks, grows pools and loads classes
+        scrollOverViewports();
+        int queuedCount = pdfView.renderingHandler.getQueuedTaskCount();
+
+        // reading the counter may allocate by itself, this is subtracted from every measurement
+        long counterStart = allocationBean.getThreadAllocatedBytes(threadId);
+        long counterBytes = allocationBean.getThreadAllocatedBytes(threadId) - counterStart;
+
+        long allocatedBytes = 0;
+        int loads = 0;
+        for (int i = 0; i < MEASURED_SCROLLS; i++) {
+            for (float offset : SCROLL_OFFSETS) {
+                pdfView.moveTo(0, offset, false);
+                long start = allocationBean.getThreadAllocatedBytes(threadId);
+                pdfView.loadPages();
+                allocatedBytes += allocationBean.getThreadAllocatedBytes(threadId) - start - counterBytes;
+                loads++;
+            }
+        }
+
+        assertTrue("bytes allocated by " + loads + " loads: " + allocatedBytes,
+                allocatedBytes <= loads * MAX_BYTES_PER_LOAD);
+        assertEquals(queuedCount, pdfView.renderingHandler.getQueuedTaskCount());
+    }
+
+    @Test
+    public void renderedTasksAreReused() throws InterruptedException {
+        // rendered parts are handed over on the main thread, which needs the view attached to a window
+        Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+        activity.setContentView(pdfView, new ViewGroup.LayoutParams(VIEW_WIDTH, VIEW_HEIGHT));
+
+        pdfView.loadPages();
+        int renderedCount = pdfView.renderingHandler.getQueuedTaskCount();
+        assertTrue(renderedCount > 0);
+        int expectedPooledCount = Math.min(renderedCount, RenderingHandler.MAX_POOLED_TASKS);
+        RenderingTask thumbnailTask = pdfView.renderingHandler.getQueuedTask(TileKey.thumbnail(0));
+        assertNotNull(thumbnailTask);
+
+        pdfView.renderingHandler.start();
+        long deadline = System.currentTimeMillis() + RENDER_TIMEOUT_MILLIS;
+        while (pdfView.renderingHandler.getQueuedTaskCount() > 0
+                || pdfView.renderingHandler.getPooledTaskCount() < expectedPooledCount) {
+            assertTrue("tasks were not rendered in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+            ShadowLooper.idleMainLooper(16, TimeUnit.MILLISECONDS);
+        }
+        // remaining tasks stay queued
+        pdfView.renderingHandler.stop();
+        int pooledCount = pdfView.renderingHandler.getPooledTaskCount();
+
+        // pages far from the rendered ones need new tasks, which are taken from the pool
+        pdfView.moveTo(0, SCROLL_OFFSETS[SCROLL_OFFSETS.length / 2] * 10, false);
+        pdfView.loadPages();
+        int requestedCount = pdfView.renderingHandler.getQueuedTaskCount();
+        assertTrue(requestedCount > 0);
+        assertEquals(Math.max(0, pooledCount - requestedCount), pdfView.renderingHandler.getPooledTaskCount());
+        if (requestedCount >= pooledCount) {
+            assertSame(thumbnailTask, pdfView.renderingHandler.getQueuedTask(thumbnailTask.key));
+        }
+    }
+
+    private void scrollOverViewports() {
+        for (float offset : SCROLL_OFFSETS) {
+            pdfView.moveTo(0, offset, false);
+            pdfView.loadPages();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright 2017 Bartosz Schiller
+ * <p/>
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * <p/>
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * <p/>
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.barteksc.pdfviewer.backend;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.graphics.RectF;
+
+import com.github.barteksc.pdfviewer.source.DocumentSource;
+import com.shockwave.pdfium.PdfDocument;
+import com.shockwave.pdfium.util.Size;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Backend which does not need the native library, for measuring tiling, caching and scheduling.
+ * Document source is ignored, every page is filled with a color derived from its index
+ * and rendering takes configured time, so results are deterministic.
+ */
+public class SyntheticRenderBackend implements RenderBackend {
+
+    private final Size[] pageSizes;
+
+    private final long[] renderCostMillis;
+
+    private final long[] openCostMillis;
+
+    /**
+     * @param pageCount        number of pages
+     * @param pageSize         size of every page, in points
+     * @param renderCostMillis time spent by rendering any region of a page
+     */
+    public SyntheticRenderBackend(int pageCount, Size pageSize, long renderCostMillis) {
+        pageSizes = new Size[pageCount];
+        Arrays.fill(pageSizes, pageSize);
+        this.renderCostMillis = new long[pageCount];
+        Arrays.fill(this.renderCostMillis, renderCostMillis);
+        openCostMillis = new long[pageCount];
+    }
+
+    public SyntheticRenderBackend setPageSize(int page, Size pageSize) {
+        pageSizes[page] = pageSize;
+        return this;
+    }
+
+    public SyntheticRenderBackend setRenderCost(int page, long millis) {
+        renderCostMillis[page] = millis;
+        return this;
+    }
+
+    public SyntheticRenderBackend setOpenPageCost(int page, long millis) {
+        openCostMillis[page] = millis;
+        return this;
+    }
+
+    @Override
+    public DocumentEngine open(Context context, DocumentSource documentSource, String password) {
+        return new SyntheticDocumentEngine(pageSizes.clone(), renderCostMillis.clone(), openCostMillis.clone());
+    }
+
+    @Override
+    public boolean supportsParallelRendering() {
+        return true;
+    }
+
+    /** Color of the page, pages differ in hue */
+    public static int getPageColor(int page) {
+        float[] hsv = {(page * 47) % 360, 0.2f, 1f};
+        return Color.HSVToColor(hsv);
+    }
+
+    private static void spend(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class SyntheticDocumentEngine implements DocumentEngine {
+
+        private final Size[] pageSizes;
+
+        private final long[] renderCostMillis;
+
+        private final long[] openCostMillis;
+
+        SyntheticDocumentEngine(Size[] pageSizes, long[] renderCostMillis, long[] openCostMillis) {
+            this.pageSizes = pageSizes;
+            this.renderCostMillis = renderCostMillis;
+            this.openCostMillis = openCostMillis;
+        }
+
+        @Override
+        public int getPageCount() {
+            return pageSizes.length;
+        }
+
+        @Override
+        public Size getPageSize(int page) {
+            return pageSizes[page];
+        }
+
+        @Override
+        public void openPage(int page) {
+            spend(openCostMillis[page]);
+        }
+
+        @Override
+        public void renderPage(Bitmap bitmap, int page, int startX, int startY, int sizeX, int sizeY, boolean annotationRendering) {
+            spend(renderCostMillis[page]);
+            bitmap.eraseColor(getPageColor(page));
+        }
+
+        @Override
+        public PdfDocument.Meta getDocumentMeta() {
+            return new PdfDocument.Meta();
+        }
+
+        @Override
+        public List<PdfDocument.Bookmark> getTableOfContents() {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public List<PdfDocument.Link> getPageLinks(int page) {
+            return new ArrayList<>();
+        }
+
+        @Override
+        public RectF mapRectToDevice(int page, int startX, int startY, int sizeX, int sizeY, RectF rect) {
+            // page coordinates have origin in the bottom left corner
+            Size size = pageSizes[page];
+            float scaleX = sizeX / (float) size.getWidth();
+            float scaleY = sizeY / (float) size.getHeight();
+            return new RectF(startX + rect.left * scaleX, startY + (size.getHeight() - rect.top) * scaleY,
+                    startX + rect.right * scaleX, startY + (size.getHeight() - rect.bottom) * scaleY);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}